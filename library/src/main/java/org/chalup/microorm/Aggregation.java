@@ -0,0 +1,313 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm;
+
+import android.database.Cursor;
+
+import org.chalup.microorm.guava.Preconditions;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Computes aggregate values of single entity field over all rows of the
+ * {@link Cursor}, reading only the column backing the field, without creating
+ * the entity objects. The numeric aggregates read the column values as
+ * primitives and do not allocate any objects; the null values are skipped,
+ * as in SQL aggregate functions. You can get instances of this class with
+ * {@link MicroOrm#aggregate(Class, String)}.
+ * <p>
+ * All methods move the {@link Cursor} through all its rows and do not close
+ * it.
+ */
+public class Aggregation {
+
+    private final DaoAdapter<?> mAdapter;
+    private final String mColumnName;
+    private final TypeAdapter<?> mTypeAdapter;
+
+    Aggregation(DaoAdapter<?> adapter, String fieldPath) {
+        mAdapter = adapter;
+        mColumnName = adapter.getProjection()[adapter.getProjectionIndex(fieldPath)];
+        mTypeAdapter = adapter.getTypeAdapter(fieldPath);
+    }
+
+    /**
+     * Returns the number of rows with non-null field value.
+     */
+    public long count(Cursor c) {
+        long count = 0;
+        if (c != null && c.moveToFirst()) {
+            int columnIndex = c.getColumnIndexOrThrow(mColumnName);
+            do {
+                if (!c.isNull(columnIndex)) {
+                    count++;
+                }
+            } while (c.moveToNext());
+        }
+        return count;
+    }
+
+    /**
+     * Returns the sum of field values read as longs, or 0 if there are no
+     * non-null values.
+     */
+    public long sumLong(Cursor c) {
+        long sum = 0;
+        if (c != null && c.moveToFirst()) {
+            int columnIndex = c.getColumnIndexOrThrow(mColumnName);
+            do {
+                sum += c.getLong(columnIndex);
+            } while (c.moveToNext());
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the sum of field values read as doubles, or 0 if there are no
+     * non-null values.
+     */
+    public double sumDouble(Cursor c) {
+        double sum = 0;
+        if (c != null && c.moveToFirst()) {
+            int columnIndex = c.getColumnIndexOrThrow(mColumnName);
+            do {
+                sum += c.getDouble(columnIndex);
+            } while (c.moveToNext());
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the minimum of field values read as longs.
+     *
+     * @throws NoSuchElementException if there are no non-null values
+     */
+    public long minLong(Cursor c) {
+        return extremeLong(c, false);
+    }
+
+    /**
+     * Returns the maximum of field values read as longs.
+     *
+     * @throws NoSuchElementException if there are no non-null values
+     */
+    public long maxLong(Cursor c) {
+        return extremeLong(c, true);
+    }
+
+    private long extremeLong(Cursor c, boolean max) {
+        boolean found = false;
+        long result = 0;
+        if (c != null && c.moveToFirst()) {
+            int columnIndex = c.getColumnIndexOrThrow(mColumnName);
+            do {
+                if (!c.isNull(columnIndex)) {
+                    long value = c.getLong(columnIndex);
+                    if (!found || (max ? value > result : value < result)) {
+                        result = value;
+                        found = true;
+                    }
+                }
+            } while (c.moveToNext());
+        }
+        if (!found) {
+            throw new NoSuchElementException("No values of " + mColumnName);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the minimum of field values read as doubles.
+     *
+     * @throws NoSuchElementException if there are no non-null values
+     */
+    public double minDouble(Cursor c) {
+        return extremeDouble(c, false);
+    }
+
+    /**
+     * Returns the maximum of field values read as doubles.
+     *
+     * @throws NoSuchElementException if there are no non-null values
+     */
+    public double maxDouble(Cursor c) {
+        return extremeDouble(c, true);
+    }
+
+    private double extremeDouble(Cursor c, boolean max) {
+        boolean found = false;
+        double result = 0;
+        if (c != null && c.moveToFirst()) {
+            int columnIndex = c.getColumnIndexOrThrow(mColumnName);
+            do {
+                if (!c.isNull(columnIndex)) {
+                    double value = c.getDouble(columnIndex);
+                    if (!found || (max ? value > result : value < result)) {
+                        result = value;
+                        found = true;
+                    }
+                }
+            } while (c.moveToNext());
+        }
+        if (!found) {
+            throw new NoSuchElementException("No values of " + mColumnName);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of distinct non-null field values. The values are
+     * read with the {@link TypeAdapter} of the field and compared with
+     * {@link Object#equals(Object)}.
+     */
+    public int countDistinct(Cursor c) {
+        Set<Object> values = new HashSet<>();
+        if (c != null && c.moveToFirst()) {
+            int columnIndex = c.getColumnIndexOrThrow(mColumnName);
+            do {
+                if (!c.isNull(columnIndex)) {
+                    values.add(TypeAdapters.fromCursor(mTypeAdapter, c, columnIndex));
+                }
+            } while (c.moveToNext());
+        }
+        values.remove(null);
+        return values.size();
+    }
+
+    /**
+     * Returns the {@link Grouped} aggregation computing the aggregate values
+     * separately for every value of another field.
+     *
+     * @param <K>          the type of the grouping field
+     * @param keyFieldPath the name of the grouping field, or the path of the
+     *                     embedded object field, e.g. {@code "address.city"}
+     * @param keyType      The {@link Class} of the grouping field values, e.g.
+     *                     {@code Integer.class} for {@code int} field
+     * @return the {@link Grouped} aggregation
+     * @throws IllegalArgumentException if the values of grouping field are not
+     *                                  instances of {@code keyType}
+     */
+    public <K> Grouped<K> groupBy(String keyFieldPath, Class<K> keyType) {
+        Class<?> fieldType = Fields.boxed(mAdapter.getFieldType(keyFieldPath));
+        Preconditions.checkArgument(keyType.isAssignableFrom(fieldType), "Field %s of type %s cannot be grouped by %s", keyFieldPath, fieldType.getName(), keyType.getName());
+
+        return new Grouped<>(new Aggregation(mAdapter, keyFieldPath), keyType);
+    }
+
+    /**
+     * Computes the aggregate values of the field for every value of grouping
+     * field. The grouping field values are read with its {@link TypeAdapter}
+     * once per row. The returned {@link Map}s iterate over groups in order of
+     * their first occurrence in the {@link Cursor}.
+     *
+     * @param <K> the type of the grouping field
+     */
+    public class Grouped<K> {
+        private final Aggregation mKey;
+        private final Class<K> mKeyType;
+
+        Grouped(Aggregation key, Class<K> keyType) {
+            mKey = key;
+            mKeyType = keyType;
+        }
+
+        private K readKey(Cursor c, int columnIndex) {
+            return mKeyType.cast(TypeAdapters.fromCursor(mKey.mTypeAdapter, c, columnIndex));
+        }
+
+        /**
+         * Returns the number of rows with non-null field value in every
+         * group.
+         */
+        public Map<K, Long> count(Cursor c) {
+            Map<K, long[]> counts = new LinkedHashMap<>();
+            if (c != null && c.moveToFirst()) {
+                int keyColumnIndex = c.getColumnIndexOrThrow(mKey.mColumnName);
+                int columnIndex = c.getColumnIndexOrThrow(mColumnName);
+                do {
+                    long[] count = group(counts, readKey(c, keyColumnIndex));
+                    if (!c.isNull(columnIndex)) {
+                        count[0]++;
+                    }
+                } while (c.moveToNext());
+            }
+            return toLongs(counts);
+        }
+
+        /**
+         * Returns the sum of field values read as longs in every group.
+         */
+        public Map<K, Long> sumLong(Cursor c) {
+            Map<K, long[]> sums = new LinkedHashMap<>();
+            if (c != null && c.moveToFirst()) {
+                int keyColumnIndex = c.getColumnIndexOrThrow(mKey.mColumnName);
+                int columnIndex = c.getColumnIndexOrThrow(mColumnName);
+                do {
+                    group(sums, readKey(c, keyColumnIndex))[0] += c.getLong(columnIndex);
+                } while (c.moveToNext());
+            }
+            return toLongs(sums);
+        }
+
+        /**
+         * Returns the sum of field values read as doubles in every group.
+         */
+        public Map<K, Double> sumDouble(Cursor c) {
+            Map<K, double[]> sums = new LinkedHashMap<>();
+            if (c != null && c.moveToFirst()) {
+                int keyColumnIndex = c.getColumnIndexOrThrow(mKey.mColumnName);
+                int columnIndex = c.getColumnIndexOrThrow(mColumnName);
+                do {
+                    K key = readKey(c, keyColumnIndex);
+                    double[] sum = sums.get(key);
+                    if (sum == null) {
+                        sum = new double[1];
+                        sums.put(key, sum);
+                    }
+                    sum[0] += c.getDouble(columnIndex);
+                } while (c.moveToNext());
+            }
+
+            Map<K, Double> result = new LinkedHashMap<>();
+            for (Map.Entry<K, double[]> entry : sums.entrySet()) {
+                result.put(entry.getKey(), entry.getValue()[0]);
+            }
+            return result;
+        }
+
+        private long[] group(Map<K, long[]> groups, K key) {
+            long[] group = groups.get(key);
+            if (group == null) {
+                group = new long[1];
+                groups.put(key, group);
+            }
+            return group;
+        }
+
+        private Map<K, Long> toLongs(Map<K, long[]> groups) {
+            Map<K, Long> result = new LinkedHashMap<>();
+            for (Map.Entry<K, long[]> entry : groups.entrySet()) {
+                result.put(entry.getKey(), entry.getValue()[0]);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * {@link InputStream} reading single blob value in chunks with
+ * {@code substr()} queries, so the blobs larger than the
+ * {@link android.database.CursorWindow} can be read, and only one chunk is
+ * held in memory at a time.
+ */
+class BlobInputStream extends InputStream {
+
+    static final int CHUNK_SIZE = 256 * 1024;
+
+    private final SQLiteDatabase mDb;
+    private final String mChunkSql;
+    private final String mKey;
+    private final long mLength;
+
+    private long mPosition;
+    private byte[] mChunk;
+    private int mChunkPosition;
+
+    private BlobInputStream(SQLiteDatabase db, String table, String blobColumn, String keyColumn, String key, long length) {
+        mDb = db;
+        mChunkSql = "SELECT substr(" + blobColumn + ", ?, ?) FROM " + table + " WHERE " + keyColumn + " = ?";
+        mKey = key;
+        mLength = length;
+    }
+
+    /**
+     * Returns the stream reading the blob from the row with given key, or
+     * null if there is no such row or the blob is NULL.
+     */
+    static BlobInputStream open(SQLiteDatabase db, String table, String blobColumn, String keyColumn, long key) {
+        String keyArg = Long.toString(key);
+        Cursor c = db.rawQuery("SELECT length(" + blobColumn + ") FROM " + table + " WHERE " + keyColumn + " = ?", new String[]{keyArg});
+        try {
+            if (!c.moveToFirst() || c.isNull(0)) {
+                return null;
+            }
+            return new BlobInputStream(db, table, blobColumn, keyColumn, keyArg, c.getLong(0));
+        } finally {
+            c.close();
+        }
+    }
+
+    private boolean fillChunk() {
+        if (mChunk != null && mChunkPosition < mChunk.length) {
+            return true;
+        }
+        if (mPosition >= mLength) {
+            return false;
+        }
+
+        int chunkSize = (int) Math.min(CHUNK_SIZE, mLength - mPosition);
+        // substr() positions are 1-based
+        Cursor c = mDb.rawQuery(mChunkSql, new String[]{Long.toString(mPosition + 1), Integer.toString(chunkSize), mKey});
+        try {
+            mChunk = c.moveToFirst() ? c.getBlob(0) : null;
+        } finally {
+            c.close();
+        }
+        mChunkPosition = 0;
+
+        if (mChunk == null || mChunk.length == 0) {
+            // the row was deleted or the blob shrunk since the stream was opened
+            mChunk = null;
+            mPosition = mLength;
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fillChunk()) {
+            return -1;
+        }
+        mPosition++;
+        return mChunk[mChunkPosition++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int count) throws IOException {
+        if (count == 0) {
+            return 0;
+        }
+        if (!fillChunk()) {
+            return -1;
+        }
+
+        int read = Math.min(count, mChunk.length - mChunkPosition);
+        System.arraycopy(mChunk, mChunkPosition, buffer, offset, read);
+        mChunkPosition += read;
+        mPosition += read;
+        return read;
+    }
+
+    @Override
+    public long skip(long count) throws IOException {
+        long skipped = Math.max(0, Math.min(count, mLength - mPosition));
+        if (mChunk != null && skipped < mChunk.length - mChunkPosition) {
+            mChunkPosition += skipped;
+        } else {
+            mChunk = null;
+        }
+        mPosition += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return mChunk != null ? mChunk.length - mChunkPosition : 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        mChunk = null;
+        mPosition = mLength;
+    }
+}
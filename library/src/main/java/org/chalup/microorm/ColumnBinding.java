@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm;
+
+import android.database.Cursor;
+
+/**
+ * Resolves the index of the column with given name once per {@link Cursor}
+ * layout.
+ */
+final class ColumnBinding {
+
+    final String mColumnName;
+    private final LayoutCache<Integer> mColumnIndex = new LayoutCache<>();
+
+    ColumnBinding(String columnName) {
+        mColumnName = columnName;
+    }
+
+    int getColumnIndex(Cursor c) {
+        Integer columnIndex = mColumnIndex.get(c);
+        if (columnIndex == null) {
+            columnIndex = c.getColumnIndexOrThrow(mColumnName);
+            mColumnIndex.put(c, columnIndex);
+        }
+        return columnIndex;
+    }
+}
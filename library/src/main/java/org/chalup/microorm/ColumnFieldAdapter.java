@@ -25,19 +25,37 @@ class ColumnFieldAdapter extends FieldAdapter {
 
     private final String mColumnName;
     private final String[] mColumnNames;
-    private final TypeAdapter<?> mTypeAdapter;
+    final TypeAdapter<?> mTypeAdapter;
+    private final IndexedTypeAdapter<?> mIndexedTypeAdapter;
+    private final ReusingTypeAdapter<Object> mReusingTypeAdapter;
 
-    ColumnFieldAdapter(Field field, TypeAdapter<?> typeAdapter) {
+    @SuppressWarnings("unchecked")
+    ColumnFieldAdapter(Field field, TypeAdapter<?> typeAdapter, String prefix) {
         super(field);
         mTypeAdapter = typeAdapter;
+        mIndexedTypeAdapter = typeAdapter instanceof IndexedTypeAdapter ? (IndexedTypeAdapter<?>) typeAdapter : null;
+        mReusingTypeAdapter = typeAdapter instanceof ReusingTypeAdapter ? (ReusingTypeAdapter<Object>) typeAdapter : null;
 
-        mColumnName = toSQLNameDefault(field.getName());
+        mColumnName = prefix + toSQLNameDefault(field.getName());
         mColumnNames = new String[]{mColumnName};
     }
 
     @Override
-    public void setValueFromCursor(Cursor inCursor, Object outTarget) throws IllegalArgumentException, IllegalAccessException {
-        mField.set(outTarget, mTypeAdapter.fromCursor(inCursor, mColumnName));
+    public void setValueFromCursor(Cursor inCursor, int[] columnIndices, int offset, Object outTarget) throws IllegalArgumentException, IllegalAccessException {
+        if (columnIndices[offset] < 0) {
+            return;
+        }
+        if (mReusingTypeAdapter != null) {
+            Object reused = mField.get(outTarget);
+            Object value = mReusingTypeAdapter.fromCursor(inCursor, columnIndices[offset], reused);
+            if (value != reused) {
+                mField.set(outTarget, value);
+            }
+            return;
+        }
+        mField.set(outTarget, mIndexedTypeAdapter != null
+                ? mIndexedTypeAdapter.fromCursor(inCursor, columnIndices[offset])
+                : mTypeAdapter.fromCursor(inCursor, mColumnName));
     }
 
     @SuppressWarnings("unchecked")
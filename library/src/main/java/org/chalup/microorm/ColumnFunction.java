@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm;
+
+import android.database.Cursor;
+
+import org.chalup.microorm.guava.Function;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link Function} reading the value of single column from the current
+ * {@link Cursor} row with the registered {@link TypeAdapter}. The column index
+ * is resolved once per {@link Cursor} layout if the {@link TypeAdapter} is
+ * {@link IndexedTypeAdapter}. You can get instances of this class with
+ * {@link MicroOrm#getColumn(String)}.
+ *
+ * @param <T> the type of the column values
+ */
+public class ColumnFunction<T> implements Function<Cursor, T> {
+
+    private static final Map<Class<?>, Class<?>> WRAPPERS = new HashMap<>();
+
+    static {
+        WRAPPERS.put(short.class, Short.class);
+        WRAPPERS.put(int.class, Integer.class);
+        WRAPPERS.put(long.class, Long.class);
+        WRAPPERS.put(boolean.class, Boolean.class);
+        WRAPPERS.put(float.class, Float.class);
+        WRAPPERS.put(double.class, Double.class);
+    }
+
+    private final ColumnBinding mColumn;
+    private final TypeAdapter<T> mTypeAdapter;
+    private final IndexedTypeAdapter<T> mIndexedTypeAdapter;
+    private final Class<?> mArrayComponentType;
+
+    ColumnFunction(String columnName, Class<T> klass, TypeAdapter<T> typeAdapter) {
+        mColumn = new ColumnBinding(columnName);
+        mTypeAdapter = typeAdapter;
+        mIndexedTypeAdapter = typeAdapter instanceof IndexedTypeAdapter ? (IndexedTypeAdapter<T>) typeAdapter : null;
+        mArrayComponentType = WRAPPERS.containsKey(klass) ? WRAPPERS.get(klass) : klass;
+    }
+
+    @Override
+    public T apply(Cursor c) {
+        return mIndexedTypeAdapter != null
+                ? mIndexedTypeAdapter.fromCursor(c, mColumn.getColumnIndex(c))
+                : mTypeAdapter.fromCursor(c, mColumn.mColumnName);
+    }
+
+    /**
+     * Reads the column values from all rows of the {@link Cursor}.
+     *
+     * @param c a valid {@link Cursor}; the provided {@link Cursor} will not be
+     *          closed
+     * @return the {@link List} of column values
+     */
+    public List<T> toList(Cursor c) {
+        List<T> result = new ArrayList<>();
+        if (c != null && c.moveToFirst()) {
+            do {
+                result.add(apply(c));
+            } while (c.moveToNext());
+        }
+        return result;
+    }
+
+    /**
+     * Same as {@link #toList(Cursor)}, but returns an array, e.g.
+     * {@code String[]} for {@code String} column.
+     */
+    @SuppressWarnings("unchecked")
+    public T[] toArray(Cursor c) {
+        List<T> values = toList(c);
+        return values.toArray((T[]) Array.newInstance(mArrayComponentType, values.size()));
+    }
+}
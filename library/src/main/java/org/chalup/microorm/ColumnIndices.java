@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm;
+
+import android.database.Cursor;
+
+import java.util.Map;
+
+final class ColumnIndices {
+    private ColumnIndices() {
+    }
+
+    /**
+     * Returns the indices of given columns in given {@link Cursor}. The
+     * leading columns which are at the same positions in the {@link Cursor},
+     * e.g. all columns if the {@link Cursor} was queried with the projection
+     * returned by {@link MicroOrm#getProjection(Class)}, are bound by position
+     * without looking up their names.
+     */
+    static int[] resolve(Cursor c, String[] columns) {
+        int[] indices = new int[columns.length];
+        for (int i = bindByPosition(c, columns, indices); i < columns.length; i++) {
+            indices[i] = c.getColumnIndexOrThrow(columns[i]);
+        }
+        return indices;
+    }
+
+    /**
+     * Same as {@link #resolve(Cursor, String[])}, but reuses the indices
+     * already present in {@code resolved} map and puts the newly resolved
+     * indices there, so the columns shared by multiple projections are looked
+     * up only once.
+     */
+    static int[] resolve(Cursor c, String[] columns, Map<String, Integer> resolved) {
+        int[] indices = new int[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            Integer index = resolved.get(columns[i]);
+            if (index == null) {
+                index = c.getColumnIndexOrThrow(columns[i]);
+                resolved.put(columns[i], index);
+            }
+            indices[i] = index;
+        }
+        return indices;
+    }
+
+    /**
+     * Same as {@link #resolve(Cursor, String[])}, but stores -1 for the
+     * columns missing in given {@link Cursor}.
+     */
+    static int[] resolveSparse(Cursor c, String[] columns) {
+        int[] indices = new int[columns.length];
+        for (int i = bindByPosition(c, columns, indices); i < columns.length; i++) {
+            indices[i] = c.getColumnIndex(columns[i]);
+        }
+        return indices;
+    }
+
+    /**
+     * Stores the indices of the leading columns which have the same positions
+     * in given {@link Cursor} and returns the number of such columns. The
+     * binding stops at the first duplicated column, so the duplicates are
+     * always resolved by the {@link Cursor} lookup by name, which may pick
+     * either occurrence depending on the {@link Cursor} implementation.
+     */
+    private static int bindByPosition(Cursor c, String[] columns, int[] indices) {
+        String[] columnNames = c.getColumnNames();
+        if (columnNames == null) {
+            return 0;
+        }
+
+        int bound = 0;
+        while (bound < columns.length && bound < columnNames.length && columns[bound].equals(columnNames[bound])) {
+            for (int j = 0; j < bound; j++) {
+                if (columns[j].equals(columns[bound])) {
+                    return bound;
+                }
+            }
+            indices[bound] = bound;
+            bound++;
+        }
+        return bound;
+    }
+}
@@ -24,6 +24,28 @@ interface DaoAdapter<T> {
 
     T fromCursor(Cursor c, T object);
 
+    /**
+     * Returns the indices of the columns from {@link #getProjection()} in
+     * given {@link Cursor}. The result is cached for the {@link Cursor} layout
+     * and must not be modified.
+     */
+    int[] getColumnIndices(Cursor c);
+
+    /**
+     * Same as {@link #getColumnIndices(Cursor)}, but returns -1 as the index
+     * of the columns missing in given {@link Cursor} instead of throwing.
+     * The fields backed by such columns are skipped by
+     * {@link #fromCursor(Cursor, int[], int, Object)}.
+     */
+    int[] getSparseColumnIndices(Cursor c);
+
+    /**
+     * Same as {@link #fromCursor(Cursor, Object)}, but reads the columns from
+     * {@code columnIndices} obtained from {@link #getColumnIndices(Cursor)},
+     * starting at {@code offset}.
+     */
+    T fromCursor(Cursor c, int[] columnIndices, int offset, T object);
+
     ContentValues toContentValues(ContentValues values, T object);
 
     ContentValues createContentValues();
@@ -31,4 +53,35 @@ interface DaoAdapter<T> {
     String[] getProjection();
 
     String[] getWritableColumns();
+
+    /**
+     * Returns the index in {@link #getProjection()} of the column backing the
+     * field with given name. Fields of embedded objects are specified by path,
+     * e.g. {@code "address.city"}.
+     *
+     * @throws IllegalArgumentException if there is no such field or the field
+     *                                  is not backed by single column
+     */
+    int getProjectionIndex(String fieldPath);
+
+    /**
+     * Returns the indices in {@link #getProjection()} of all columns backing
+     * the field with given path, which may be either a column field or an
+     * embedded object field.
+     *
+     * @throws IllegalArgumentException if there is no such field
+     */
+    int[] getProjectionIndices(String fieldPath);
+
+    /**
+     * Returns the {@link TypeAdapter} reading the column backing the field
+     * with given path. See {@link #getProjectionIndex(String)} for details.
+     */
+    TypeAdapter<?> getTypeAdapter(String fieldPath);
+
+    /**
+     * Returns the declared type of the field with given path. See
+     * {@link #getProjectionIndex(String)} for details.
+     */
+    Class<?> getFieldType(String fieldPath);
 }
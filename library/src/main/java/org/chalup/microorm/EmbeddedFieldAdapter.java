@@ -23,17 +23,53 @@ import java.lang.reflect.Field;
 
 class EmbeddedFieldAdapter extends FieldAdapter {
 
-    private final DaoAdapter<Object> mDaoAdapter;
+    final DaoAdapter<Object> mDaoAdapter;
+    private final boolean mNullable;
+    private final int mColumnCount;
 
     @SuppressWarnings("unchecked")
-    EmbeddedFieldAdapter(Field field, DaoAdapter<?> daoAdapter) {
+    EmbeddedFieldAdapter(Field field, DaoAdapter<?> daoAdapter, boolean nullable) {
         super(field);
         mDaoAdapter = ((DaoAdapter<Object>) daoAdapter);
+        mNullable = nullable;
+        mColumnCount = daoAdapter.getProjection().length;
     }
 
+    /**
+     * Fills the embedded object already held by {@code outTarget}, e.g. the
+     * one set by {@link EmbeddedFieldInitializer}, and creates the new one
+     * only if the field is null. The field is not modified if none of the
+     * columns is present in the {@link Cursor}.
+     */
     @Override
-    public void setValueFromCursor(Cursor inCursor, Object outTarget) throws IllegalArgumentException, IllegalAccessException {
-        mField.set(outTarget, mDaoAdapter.fromCursor(inCursor, mDaoAdapter.createInstance()));
+    public void setValueFromCursor(Cursor inCursor, int[] columnIndices, int offset, Object outTarget) throws IllegalArgumentException, IllegalAccessException {
+        boolean anyPresent = false;
+        boolean allNull = true;
+        for (int i = offset; i < offset + mColumnCount; i++) {
+            if (columnIndices[i] >= 0) {
+                anyPresent = true;
+                if (!mNullable || !inCursor.isNull(columnIndices[i])) {
+                    allNull = false;
+                    break;
+                }
+            }
+        }
+
+        if (!anyPresent) {
+            return;
+        }
+
+        if (mNullable && allNull) {
+            mField.set(outTarget, null);
+            return;
+        }
+
+        Object embedded = mField.get(outTarget);
+        if (embedded == null) {
+            mField.set(outTarget, mDaoAdapter.fromCursor(inCursor, columnIndices, offset, mDaoAdapter.createInstance()));
+        } else {
+            mDaoAdapter.fromCursor(inCursor, columnIndices, offset, embedded);
+        }
     }
 
     @Override
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+
+import org.chalup.microorm.guava.Preconditions;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.EnumSet;
+
+/**
+ * Maps the {@link EnumSet} field to the bits of single INTEGER column, using
+ * the bit at the ordinal of each enum constant. The set already held by the
+ * field is refilled instead of creating the new one. The NULL column is read
+ * as null.
+ */
+class EnumSetFieldAdapter extends FieldAdapter {
+
+    private final String mColumnName;
+    private final String[] mColumnNames;
+    @SuppressWarnings("rawtypes")
+    private final Class<? extends Enum> mEnumClass;
+    private final Enum<?>[] mConstants;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    EnumSetFieldAdapter(Field field, String columnName) {
+        super(field);
+        mColumnName = columnName;
+        mColumnNames = new String[]{columnName};
+
+        Type genericType = field.getGenericType();
+        Type elementType = genericType instanceof ParameterizedType ? ((ParameterizedType) genericType).getActualTypeArguments()[0] : null;
+        Preconditions.checkArgument(elementType instanceof Class && ((Class<?>) elementType).isEnum(), "Unknown element type of @Packed field %s", field.getName());
+
+        mEnumClass = (Class<? extends Enum>) elementType;
+        mConstants = mEnumClass.getEnumConstants();
+        Preconditions.checkArgument(mConstants.length <= Long.SIZE, "Enum of @Packed field %s has more than 64 constants", field.getName());
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    @Override
+    public void setValueFromCursor(Cursor inCursor, int[] columnIndices, int offset, Object outTarget) throws IllegalArgumentException, IllegalAccessException {
+        if (columnIndices[offset] < 0) {
+            return;
+        }
+
+        if (inCursor.isNull(columnIndices[offset])) {
+            mField.set(outTarget, null);
+            return;
+        }
+
+        EnumSet set = (EnumSet) mField.get(outTarget);
+        if (set == null) {
+            set = EnumSet.noneOf(mEnumClass);
+            mField.set(outTarget, set);
+        } else {
+            set.clear();
+        }
+
+        long bits = inCursor.getLong(columnIndices[offset]);
+        for (int i = 0; i < mConstants.length; i++) {
+            if ((bits & (1L << i)) != 0) {
+                set.add(mConstants[i]);
+            }
+        }
+    }
+
+    @Override
+    protected void putValueToContentValues(Object value, ContentValues outValues) {
+        if (value == null) {
+            outValues.putNull(mColumnName);
+            return;
+        }
+
+        long bits = 0;
+        for (Object constant : (EnumSet<?>) value) {
+            bits |= 1L << ((Enum<?>) constant).ordinal();
+        }
+        outValues.put(mColumnName, bits);
+    }
+
+    @Override
+    public String[] getColumnNames() {
+        return mColumnNames;
+    }
+
+    @Override
+    public String[] getWritableColumnNames() {
+        return mColumnNames;
+    }
+}
@@ -29,7 +29,13 @@ abstract class FieldAdapter {
         mField = field;
     }
 
-    public abstract void setValueFromCursor(Cursor inCursor, Object outTarget)
+    /**
+     * Sets the field of {@code outTarget} to the value read from the current
+     * row of {@code inCursor}. The indices of columns returned from
+     * {@link #getColumnNames()} are stored in {@code columnIndices} starting
+     * at {@code offset}.
+     */
+    public abstract void setValueFromCursor(Cursor inCursor, int[] columnIndices, int offset, Object outTarget)
             throws IllegalArgumentException, IllegalAccessException;
 
     public void putToContentValues(Object inObject, ContentValues outValues) throws IllegalAccessException {
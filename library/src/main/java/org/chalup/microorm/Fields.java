@@ -33,4 +33,44 @@ final class Fields {
         }
         return fields;
     }
+
+    static Field findField(Class<?> klass, String name) {
+        for (Field field : allFieldsIncludingPrivateAndSuper(klass)) {
+            if (field.getName().equals(name)) {
+                field.setAccessible(true);
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Field " + name + " not found in " + klass.getName());
+    }
+
+    static boolean isIntegral(Class<?> type) {
+        return type == long.class || type == Long.class
+                || type == int.class || type == Integer.class
+                || type == short.class || type == Short.class;
+    }
+
+    static Class<?> boxed(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return type;
+        }
+        if (type == long.class) {
+            return Long.class;
+        } else if (type == int.class) {
+            return Integer.class;
+        } else if (type == short.class) {
+            return Short.class;
+        } else if (type == boolean.class) {
+            return Boolean.class;
+        } else if (type == double.class) {
+            return Double.class;
+        } else if (type == float.class) {
+            return Float.class;
+        } else if (type == byte.class) {
+            return Byte.class;
+        } else if (type == char.class) {
+            return Character.class;
+        }
+        return Void.class;
+    }
 }
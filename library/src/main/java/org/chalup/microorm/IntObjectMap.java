@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm;
+
+import org.chalup.microorm.guava.Preconditions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Map from primitive {@code int} keys to non-null objects. The entries are
+ * stored in open addressing hash table with linear probing, without boxing
+ * the keys or allocating the entry objects. You can get instances of this
+ * class with {@link MicroOrm#intMapFromCursor(android.database.Cursor, Class, String)}.
+ * <p>
+ * This class is not thread safe.
+ *
+ * @param <T> the type of the values
+ */
+public class IntObjectMap<T> {
+
+    private static final int DEFAULT_EXPECTED_SIZE = 16;
+
+    private int[] mKeys;
+    private Object[] mValues;
+    private int mMask;
+    private int mSize;
+    private int mResizeThreshold;
+
+    public IntObjectMap() {
+        this(DEFAULT_EXPECTED_SIZE);
+    }
+
+    /**
+     * Creates an empty map which can hold {@code expectedSize} entries without
+     * growing.
+     */
+    public IntObjectMap(int expectedSize) {
+        Preconditions.checkArgument(expectedSize >= 0, "Expected size cannot be negative, was %s", expectedSize);
+        allocate(LongObjectMap.tableSize(expectedSize));
+    }
+
+    private void allocate(int tableSize) {
+        mKeys = new int[tableSize];
+        mValues = new Object[tableSize];
+        mMask = tableSize - 1;
+        mResizeThreshold = tableSize / 4 * 3;
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int slot(int key) {
+        int i = hash(key) & mMask;
+        while (mValues[i] != null && mKeys[i] != key) {
+            i = (i + 1) & mMask;
+        }
+        return i;
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    public boolean containsKey(int key) {
+        return mValues[slot(key)] != null;
+    }
+
+    /**
+     * Returns the value mapped to given key, or null if there is no such
+     * mapping.
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int key) {
+        return (T) mValues[slot(key)];
+    }
+
+    /**
+     * Maps given key to given value, replacing the previous mapping.
+     *
+     * @return the value previously mapped to given key, or null if there was
+     * no such mapping
+     */
+    @SuppressWarnings("unchecked")
+    public T put(int key, T value) {
+        Preconditions.checkNotNull(value);
+
+        int i = slot(key);
+        T previous = (T) mValues[i];
+        mKeys[i] = key;
+        mValues[i] = value;
+
+        if (previous == null && ++mSize > mResizeThreshold) {
+            rehash(mKeys.length * 2);
+        }
+        return previous;
+    }
+
+    /**
+     * Removes the mapping for given key.
+     *
+     * @return the value mapped to given key, or null if there was no such
+     * mapping
+     */
+    @SuppressWarnings("unchecked")
+    public T remove(int key) {
+        int i = slot(key);
+        T previous = (T) mValues[i];
+        if (previous == null) {
+            return null;
+        }
+
+        // shift back the following entries of the probe sequence, so no
+        // lookup stops at the emptied slot
+        int empty = i;
+        for (int j = (i + 1) & mMask; mValues[j] != null; j = (j + 1) & mMask) {
+            int home = hash(mKeys[j]) & mMask;
+            if (((j - home) & mMask) >= ((j - empty) & mMask)) {
+                mKeys[empty] = mKeys[j];
+                mValues[empty] = mValues[j];
+                empty = j;
+            }
+        }
+        mValues[empty] = null;
+        mSize--;
+        return previous;
+    }
+
+    public void clear() {
+        Arrays.fill(mValues, null);
+        mSize = 0;
+    }
+
+    private void rehash(int tableSize) {
+        int[] keys = mKeys;
+        Object[] values = mValues;
+        allocate(tableSize);
+
+        for (int i = 0; i < keys.length; i++) {
+            if (values[i] != null) {
+                int slot = slot(keys[i]);
+                mKeys[slot] = keys[i];
+                mValues[slot] = values[i];
+            }
+        }
+    }
+
+    /**
+     * Returns the keys of all entries, in the same order as {@link #values()}.
+     */
+    public int[] keys() {
+        int[] keys = new int[mSize];
+        int count = 0;
+        for (int i = 0; i < mValues.length; i++) {
+            if (mValues[i] != null) {
+                keys[count++] = mKeys[i];
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Returns the values of all entries, in the same order as {@link #keys()}.
+     * The returned {@link List} is a snapshot and can be modified.
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> values() {
+        List<T> values = new ArrayList<>(mSize);
+        for (Object value : mValues) {
+            if (value != null) {
+                values.add((T) value);
+            }
+        }
+        return values;
+    }
+}
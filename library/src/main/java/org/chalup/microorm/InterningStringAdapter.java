@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm;
+
+import android.content.ContentValues;
+import android.database.CharArrayBuffer;
+import android.database.Cursor;
+
+/**
+ * {@link TypeAdapter} for String columns with few distinct values, which
+ * returns the same String instance for the repeated values. The characters of
+ * the column are copied into the reusable buffer and compared with the String
+ * previously read from the column with the same hash, so the new String is
+ * allocated only for the values missing in the table.
+ * <p>
+ * The table is bounded: the colliding values replace each other, and the
+ * values longer than {@link #MAX_INTERNED_LENGTH} are not interned at all.
+ * Safe for use from multiple threads without locking; the racing threads can
+ * at worst replace each other's table entries.
+ */
+class InterningStringAdapter implements IndexedTypeAdapter<String> {
+
+    static final int MAX_INTERNED_LENGTH = 128;
+    private static final int TABLE_SIZE = 256;
+
+    private static final ThreadLocal<CharArrayBuffer> BUFFER = new ThreadLocal<CharArrayBuffer>() {
+        @Override
+        protected CharArrayBuffer initialValue() {
+            return new CharArrayBuffer(MAX_INTERNED_LENGTH);
+        }
+    };
+
+    private final String[] mTable = new String[TABLE_SIZE];
+
+    @Override
+    public String fromCursor(Cursor c, String columnName) {
+        return fromCursor(c, c.getColumnIndexOrThrow(columnName));
+    }
+
+    @Override
+    public String fromCursor(Cursor c, int columnIndex) {
+        CharArrayBuffer buffer = BUFFER.get();
+        c.copyStringToBuffer(columnIndex, buffer);
+
+        char[] chars = buffer.data;
+        int length = buffer.sizeCopied;
+        if (length == 0 && c.isNull(columnIndex)) {
+            return null;
+        }
+        if (length > MAX_INTERNED_LENGTH) {
+            return new String(chars, 0, length);
+        }
+
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        int slot = (hash ^ (hash >>> 16)) & (TABLE_SIZE - 1);
+
+        String interned = mTable[slot];
+        if (interned != null && contentEquals(interned, chars, length)) {
+            return interned;
+        }
+
+        interned = new String(chars, 0, length);
+        mTable[slot] = interned;
+        return interned;
+    }
+
+    private static boolean contentEquals(String string, char[] chars, int length) {
+        if (string.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (string.charAt(i) != chars[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void toContentValues(ContentValues values, String columnName, String object) {
+        values.put(columnName, object);
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.text.TextUtils;
+
+import java.util.Arrays;
+import java.util.Map;
+
+final class KeyedQueries {
+    private KeyedQueries() {
+    }
+
+    /**
+     * Default value of SQLITE_MAX_VARIABLE_NUMBER, i.e. the maximum number of
+     * bind arguments in a single statement.
+     */
+    static final int MAX_SQL_VARIABLES = 999;
+
+    /**
+     * Number of keys above which the keys are inserted into temporary table
+     * instead of being bound to multiple {@code IN (...)} queries.
+     */
+    static final int TEMP_TABLE_THRESHOLD = 5 * MAX_SQL_VARIABLES;
+
+    private static final String KEYS_TABLE = "temp.microorm_keys";
+    private static final String KEYS_TABLE_KEY = "microorm_key";
+
+    static long[] sortedDistinct(long[] keys, int count) {
+        long[] sorted = Arrays.copyOf(keys, count);
+        Arrays.sort(sorted);
+
+        int distinct = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[distinct - 1]) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        return distinct == sorted.length ? sorted : Arrays.copyOf(sorted, distinct);
+    }
+
+    static String inSelection(String column, int count) {
+        StringBuilder sb = new StringBuilder(column.length() + 6 + 2 * count);
+        sb.append(column).append(" IN (");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append('?');
+        }
+        return sb.append(')').toString();
+    }
+
+    static String[] withKeyColumn(String[] projection, String keyColumn) {
+        String[] result = Arrays.copyOf(projection, projection.length + 1);
+        result[projection.length] = keyColumn;
+        return result;
+    }
+
+    /**
+     * Queries the rows with given distinct keys and puts the objects created
+     * from them into {@code outObjects}. The keys are either bound to chunked
+     * {@code IN (...)} queries or, if there are more than
+     * {@link #TEMP_TABLE_THRESHOLD} of them, inserted into temporary table.
+     */
+    static <T> void loadByKeys(SQLiteDatabase db, String table, String keyColumn, long[] keys,
+                               DaoAdapter<T> adapter, Map<Long, ? super T> outObjects) {
+        if (keys.length > TEMP_TABLE_THRESHOLD) {
+            loadByKeysWithTempTable(db, table, keyColumn, keys, adapter, outObjects);
+        } else {
+            loadByKeysInChunks(db, table, keyColumn, keys, adapter, outObjects);
+        }
+    }
+
+    private static <T> void loadByKeysInChunks(SQLiteDatabase db, String table, String keyColumn, long[] keys,
+                                               DaoAdapter<T> adapter, Map<Long, ? super T> outObjects) {
+        String[] projection = withKeyColumn(adapter.getProjection(), keyColumn);
+
+        for (int offset = 0; offset < keys.length; offset += MAX_SQL_VARIABLES) {
+            int count = Math.min(MAX_SQL_VARIABLES, keys.length - offset);
+
+            String[] args = new String[count];
+            for (int i = 0; i < count; i++) {
+                args[i] = Long.toString(keys[offset + i]);
+            }
+
+            readRows(db.query(table, projection, inSelection(keyColumn, count), args, null, null, null), projection.length - 1, adapter, outObjects);
+        }
+    }
+
+    private static <T> void loadByKeysWithTempTable(SQLiteDatabase db, String table, String keyColumn, long[] keys,
+                                                    DaoAdapter<T> adapter, Map<Long, ? super T> outObjects) {
+        String[] projection = withKeyColumn(adapter.getProjection(), keyColumn);
+
+        // temporary tables are visible only to the connection which created them,
+        // so everything has to be done inside transaction holding single connection
+        db.beginTransaction();
+        try {
+            db.execSQL("CREATE TEMP TABLE IF NOT EXISTS " + KEYS_TABLE + " (" + KEYS_TABLE_KEY + " INTEGER PRIMARY KEY)");
+            db.execSQL("DELETE FROM " + KEYS_TABLE);
+
+            SQLiteStatement insert = db.compileStatement("INSERT OR IGNORE INTO " + KEYS_TABLE + " VALUES (?)");
+            try {
+                for (long key : keys) {
+                    insert.bindLong(1, key);
+                    insert.executeInsert();
+                }
+            } finally {
+                insert.close();
+            }
+
+            String sql = "SELECT " + TextUtils.join(", ", projection) + " FROM " + table
+                    + " WHERE " + keyColumn + " IN (SELECT " + KEYS_TABLE_KEY + " FROM " + KEYS_TABLE + ")";
+            readRows(db.rawQuery(sql, null), projection.length - 1, adapter, outObjects);
+
+            db.execSQL("DELETE FROM " + KEYS_TABLE);
+            // failed nested transaction would roll back the caller's one
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Queries single column of the rows with given distinct keys with chunked
+     * {@code IN (...)} queries and puts the values into {@code outValues}.
+     */
+    static <V> void loadColumnByKeys(SQLiteDatabase db, String table, String keyColumn, long[] keys,
+                                     String column, TypeAdapter<V> typeAdapter, Map<Long, ? super V> outValues) {
+        String[] projection = new String[]{column, keyColumn};
+
+        for (int offset = 0; offset < keys.length; offset += MAX_SQL_VARIABLES) {
+            int count = Math.min(MAX_SQL_VARIABLES, keys.length - offset);
+
+            String[] args = new String[count];
+            for (int i = 0; i < count; i++) {
+                args[i] = Long.toString(keys[offset + i]);
+            }
+
+            Cursor c = db.query(table, projection, inSelection(keyColumn, count), args, null, null, null);
+            try {
+                while (c.moveToNext()) {
+                    outValues.put(c.getLong(1), TypeAdapters.fromCursor(typeAdapter, c, 0));
+                }
+            } finally {
+                c.close();
+            }
+        }
+    }
+
+    private static <T> void readRows(Cursor c, int keyColumnIndex, DaoAdapter<T> adapter, Map<Long, ? super T> outObjects) {
+        try {
+            int[] columnIndices = adapter.getColumnIndices(c);
+            while (c.moveToNext()) {
+                outObjects.put(c.getLong(keyColumnIndex), adapter.fromCursor(c, columnIndices, 0, adapter.createInstance()));
+            }
+        } finally {
+            c.close();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm;
+
+import android.annotation.TargetApi;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Build;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+/**
+ * {@link Iterable} over all rows of a table, which fetches the rows in pages
+ * using keyset pagination, i.e. {@code WHERE key > ? ORDER BY key LIMIT n}
+ * queries, instead of keeping the single huge {@link Cursor} open. By default
+ * the next page is queried when the current one is consumed. If the
+ * {@link Executor} is provided, at most two pages of objects are held in
+ * memory: while the current page is being consumed, the next one is queried
+ * and mapped on the {@link Executor}. The next page is not prefetched when the
+ * {@link SQLiteDatabase} is in transaction, as the background query would
+ * wait for the connection held by the iterating thread.
+ * You can get instances of this class with
+ * {@link MicroOrm#iterate(SQLiteDatabase, String, String, Class, int)}.
+ * <p>
+ * The prefetch query which already started is not cancelled when the
+ * iterator is abandoned; it runs to completion and its result is discarded.
+ * <p>
+ * The key column must have unique INTEGER values, e.g. {@code rowid} or
+ * {@code INTEGER PRIMARY KEY} column. The keys are read as longs and bound as
+ * their decimal representation, so the TEXT or REAL keys would skip or repeat
+ * rows; the iterator throws {@link IllegalStateException} when it reads such
+ * key. Every {@link #iterator()} call starts the new iteration from the
+ * first row.
+ *
+ * @param <T> the type of the created objects
+ */
+public class KeysetIterable<T> implements Iterable<T> {
+
+    private final SQLiteDatabase mDb;
+    private final String mTable;
+    private final String mKeyColumn;
+    private final DaoAdapter<T> mAdapter;
+    private final String[] mProjection;
+    private final String mSelection;
+    private final String mOrderBy;
+    private final String mLimit;
+    private final int mPageSize;
+    private final Executor mExecutor;
+    private final RowFilter mFilter;
+    private final Map<Class<?>, TypeAdapter<?>> mTypeAdapters;
+
+    KeysetIterable(SQLiteDatabase db, String table, String keyColumn, DaoAdapter<T> adapter, int pageSize, Executor executor,
+                   RowFilter filter, Map<Class<?>, TypeAdapter<?>> typeAdapters) {
+        mDb = db;
+        mTable = table;
+        mKeyColumn = keyColumn;
+        mAdapter = adapter;
+        mProjection = KeyedQueries.withKeyColumn(adapter.getProjection(), keyColumn);
+        mSelection = keyColumn + " > ?";
+        mOrderBy = keyColumn + " ASC";
+        mLimit = Integer.toString(pageSize);
+        mPageSize = pageSize;
+        mExecutor = executor;
+        mFilter = filter;
+        mTypeAdapters = typeAdapters;
+    }
+
+    private static class Page<T> {
+        final List<T> mObjects;
+        final long mLastKey;
+        final boolean mFull;
+
+        Page(List<T> objects, long lastKey, boolean full) {
+            mObjects = objects;
+            mLastKey = lastKey;
+            mFull = full;
+        }
+    }
+
+    private Page<T> loadPage(Long afterKey) {
+        Cursor c = afterKey == null
+                ? mDb.query(mTable, mProjection, null, null, null, null, mOrderBy, mLimit)
+                : mDb.query(mTable, mProjection, mSelection, new String[]{afterKey.toString()}, null, null, mOrderBy, mLimit);
+
+        try {
+            List<T> objects = new ArrayList<>(c.getCount());
+            long lastKey = 0;
+
+            if (c.moveToFirst()) {
+                int[] columnIndices = mAdapter.getColumnIndices(c);
+                int keyColumnIndex = mProjection.length - 1;
+
+                RowAccessor row = null;
+                if (mFilter != null) {
+                    row = new RowAccessor(mAdapter, mTypeAdapters);
+                    row.bind(c, columnIndices, 0);
+                }
+
+                do {
+                    if (row == null || mFilter.accept(row)) {
+                        objects.add(mAdapter.fromCursor(c, columnIndices, 0, mAdapter.createInstance()));
+                    }
+                    checkKeyType(c, keyColumnIndex);
+                    lastKey = c.getLong(keyColumnIndex);
+                } while (c.moveToNext());
+            }
+
+            return new Page<>(objects, lastKey, c.getCount() == mPageSize);
+        } finally {
+            c.close();
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.HONEYCOMB)
+    private void checkKeyType(Cursor c, int keyColumnIndex) {
+        if (ColumnTypes.SUPPORTED && c.getType(keyColumnIndex) != Cursor.FIELD_TYPE_INTEGER) {
+            throw new IllegalStateException("Key column " + mKeyColumn + " contains non-INTEGER value " + c.getString(keyColumnIndex));
+        }
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private Page<T> mCurrentPage;
+            private int mPosition;
+            private FutureTask<Page<T>> mNextPage;
+
+            private void setCurrentPage(Page<T> page) {
+                mCurrentPage = page;
+                mPosition = 0;
+                mNextPage = null;
+
+                if (page.mFull && mExecutor != null && !mDb.inTransaction()) {
+                    final long lastKey = page.mLastKey;
+                    mNextPage = new FutureTask<>(new Callable<Page<T>>() {
+                        @Override
+                        public Page<T> call() throws Exception {
+                            return loadPage(lastKey);
+                        }
+                    });
+                    mExecutor.execute(mNextPage);
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                if (mCurrentPage == null) {
+                    setCurrentPage(loadPage(null));
+                }
+
+                while (mPosition == mCurrentPage.mObjects.size() && mCurrentPage.mFull) {
+                    setCurrentPage(mNextPage != null ? getNextPage() : loadPage(mCurrentPage.mLastKey));
+                }
+
+                return mPosition < mCurrentPage.mObjects.size();
+            }
+
+            private Page<T> getNextPage() {
+                try {
+                    return mNextPage.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for the next page", e);
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    throw new IllegalStateException(cause);
+                }
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return mCurrentPage.mObjects.get(mPosition++);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm;
+
+import android.database.Cursor;
+
+import java.util.Arrays;
+
+/**
+ * Holds the value computed for the most recently seen {@link Cursor} layout,
+ * i.e. the column names of the {@link Cursor}. Safe for use from multiple
+ * threads; concurrent use with different layouts just recomputes the value.
+ */
+final class LayoutCache<V> {
+
+    private static final class Entry<V> {
+        final String[] mColumnNames;
+        final V mValue;
+
+        Entry(String[] columnNames, V value) {
+            mColumnNames = columnNames;
+            mValue = value;
+        }
+    }
+
+    private volatile Entry<V> mEntry;
+
+    /**
+     * Returns the value cached for the layout of given {@link Cursor} or null
+     * if the layout differs from the cached one.
+     */
+    V get(Cursor c) {
+        Entry<V> entry = mEntry;
+        if (entry == null) {
+            return null;
+        }
+
+        String[] columnNames = c.getColumnNames();
+        return columnNames != null && Arrays.equals(entry.mColumnNames, columnNames)
+                ? entry.mValue
+                : null;
+    }
+
+    void put(Cursor c, V value) {
+        String[] columnNames = c.getColumnNames();
+        if (columnNames != null) {
+            mEntry = new Entry<>(columnNames, value);
+        }
+    }
+
+    void clear() {
+        mEntry = null;
+    }
+}
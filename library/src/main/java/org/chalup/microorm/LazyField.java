@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import org.chalup.microorm.guava.Preconditions;
+
+/**
+ * Handle for the value of column annotated with
+ * {@link org.chalup.microorm.annotations.Lazy}, which is fetched from the
+ * database on first access. Use
+ * {@link MicroOrm#loadLazy(SQLiteDatabase, String, java.util.List, String)}
+ * to fetch the values for multiple objects at once.
+ *
+ * @param <V> the type of the column value
+ */
+public final class LazyField<V> {
+
+    final String mColumnName;
+    final String mKeyColumn;
+    final long mKey;
+    final TypeAdapter<V> mTypeAdapter;
+
+    private V mValue;
+    private boolean mLoaded;
+
+    LazyField(String columnName, String keyColumn, long key, TypeAdapter<V> typeAdapter) {
+        mColumnName = columnName;
+        mKeyColumn = keyColumn;
+        mKey = key;
+        mTypeAdapter = typeAdapter;
+    }
+
+    private LazyField(V value) {
+        this(null, null, 0, null);
+        set(value);
+    }
+
+    /**
+     * Returns the loaded {@link LazyField} holding given value, e.g. for the
+     * new objects which will be inserted into database.
+     */
+    public static <V> LazyField<V> of(V value) {
+        return new LazyField<>(value);
+    }
+
+    /**
+     * Returns the value of the column, querying it from given table on first
+     * access.
+     *
+     * @param db    the database containing the table
+     * @param table the table from which the object holding this field was
+     *              queried
+     * @return the value of the column, or null if it is NULL or the row no
+     * longer exists
+     */
+    public V get(SQLiteDatabase db, String table) {
+        if (!mLoaded) {
+            Preconditions.checkNotNull(db);
+            Preconditions.checkNotNull(table);
+
+            Cursor c = db.query(table, new String[]{mColumnName}, mKeyColumn + " = ?", new String[]{Long.toString(mKey)}, null, null, null);
+            try {
+                set(c.moveToFirst() ? TypeAdapters.fromCursor(mTypeAdapter, c, 0) : null);
+            } finally {
+                c.close();
+            }
+        }
+        return mValue;
+    }
+
+    /**
+     * Returns the value of the column if it was already loaded or set.
+     *
+     * @throws IllegalStateException if the value was not loaded yet
+     */
+    public V get() {
+        if (!mLoaded) {
+            throw new IllegalStateException("Lazy column " + mColumnName + " is not loaded");
+        }
+        return mValue;
+    }
+
+    /**
+     * Sets the value of this field, which is then written by
+     * {@link MicroOrm#toContentValues(Object)}.
+     */
+    public void set(V value) {
+        mValue = value;
+        mLoaded = true;
+    }
+
+    /**
+     * Returns true if the value was already loaded or set.
+     */
+    public boolean isLoaded() {
+        return mLoaded;
+    }
+
+    /**
+     * Returns the key of the row holding the value.
+     */
+    public long getKey() {
+        return mKey;
+    }
+}
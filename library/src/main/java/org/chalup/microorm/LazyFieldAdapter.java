@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+
+import java.lang.reflect.Field;
+
+/**
+ * Sets the {@link LazyField} handles keyed by the value of the key field. It
+ * doesn't read any columns, so it has to be placed after the adapter of the
+ * key field, which value is read from the target object.
+ */
+class LazyFieldAdapter extends FieldAdapter {
+
+    private static final String[] NO_COLUMNS = new String[0];
+
+    private final String mColumnName;
+    private final String[] mWritableColumnNames;
+    private final Field mKeyField;
+    private final String mKeyColumn;
+    private final TypeAdapter<Object> mTypeAdapter;
+
+    @SuppressWarnings("unchecked")
+    LazyFieldAdapter(Field field, Field keyField, TypeAdapter<?> typeAdapter, String prefix) {
+        super(field);
+        mColumnName = prefix + ColumnFieldAdapter.toSQLNameDefault(field.getName());
+        mWritableColumnNames = new String[]{mColumnName};
+        mKeyField = keyField;
+        mKeyColumn = prefix + ColumnFieldAdapter.toSQLNameDefault(keyField.getName());
+        mTypeAdapter = (TypeAdapter<Object>) typeAdapter;
+    }
+
+    @Override
+    public void setValueFromCursor(Cursor inCursor, int[] columnIndices, int offset, Object outTarget) throws IllegalArgumentException, IllegalAccessException {
+        Number key = (Number) mKeyField.get(outTarget);
+        if (key == null) {
+            mField.set(outTarget, null);
+            return;
+        }
+
+        // keep the handle of the reused object, together with the loaded value
+        LazyField<?> current = (LazyField<?>) mField.get(outTarget);
+        if (current == null || current.mTypeAdapter == null || current.mKey != key.longValue()) {
+            mField.set(outTarget, new LazyField<>(mColumnName, mKeyColumn, key.longValue(), mTypeAdapter));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected void putValueToContentValues(Object value, ContentValues outValues) {
+        LazyField<Object> lazyField = (LazyField<Object>) value;
+        // the value which was never loaded stays untouched
+        if (lazyField != null && lazyField.isLoaded()) {
+            mTypeAdapter.toContentValues(outValues, mColumnName, lazyField.get());
+        }
+    }
+
+    @Override
+    public String[] getColumnNames() {
+        return NO_COLUMNS;
+    }
+
+    @Override
+    public String[] getWritableColumnNames() {
+        return mWritableColumnNames;
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm;
+
+import java.nio.charset.Charset;
+
+/**
+ * Text stored as UTF-8 bytes read from the database, decoded into
+ * {@link String} only when the characters are accessed for the first time.
+ * For ASCII text {@link #length()} and {@link #charAt(int)} read the bytes
+ * directly and never decode them. The instances are immutable and can be
+ * shared between threads.
+ */
+public final class LazyText implements CharSequence {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int ASCII_UNKNOWN = 0;
+    private static final int ASCII = 1;
+    private static final int NOT_ASCII = 2;
+
+    private final byte[] mBytes;
+    private final int mByteCount;
+    private String mString;
+    private int mAscii;
+
+    /**
+     * Creates the text from UTF-8 encoded bytes. The array is not copied and
+     * must not be modified afterwards.
+     */
+    public LazyText(byte[] utf8) {
+        this(utf8, utf8.length);
+    }
+
+    LazyText(byte[] utf8, int byteCount) {
+        mBytes = utf8;
+        mByteCount = byteCount;
+    }
+
+    public LazyText(String string) {
+        mBytes = null;
+        mByteCount = 0;
+        mString = string;
+    }
+
+    private boolean isAscii() {
+        if (mAscii == ASCII_UNKNOWN) {
+            int ascii = mBytes != null ? ASCII : NOT_ASCII;
+            for (int i = 0; i < mByteCount && ascii == ASCII; i++) {
+                if (mBytes[i] < 0) {
+                    ascii = NOT_ASCII;
+                }
+            }
+            mAscii = ascii;
+        }
+        return mAscii == ASCII;
+    }
+
+    /**
+     * Returns true if the text was already decoded into {@link String}.
+     */
+    public boolean isDecoded() {
+        return mString != null;
+    }
+
+    /**
+     * Returns the UTF-8 encoded text.
+     */
+    public byte[] getUtf8Bytes() {
+        if (mBytes == null) {
+            return mString.getBytes(UTF_8);
+        }
+        byte[] bytes = new byte[mByteCount];
+        System.arraycopy(mBytes, 0, bytes, 0, mByteCount);
+        return bytes;
+    }
+
+    @Override
+    public int length() {
+        return isAscii() ? mByteCount : toString().length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (isAscii()) {
+            if (index < 0 || index >= mByteCount) {
+                throw new IndexOutOfBoundsException("Index " + index + ", length " + mByteCount);
+            }
+            return (char) mBytes[index];
+        }
+        return toString().charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        String string = mString;
+        if (string == null) {
+            string = new String(mBytes, 0, mByteCount, UTF_8);
+            mString = string;
+        }
+        return string;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof LazyText)) {
+            return false;
+        }
+
+        LazyText other = (LazyText) o;
+        if (mBytes != null && other.mBytes != null) {
+            if (mByteCount != other.mByteCount) {
+                return false;
+            }
+            for (int i = 0; i < mByteCount; i++) {
+                if (mBytes[i] != other.mBytes[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return toString().equals(other.toString());
+    }
+
+    @Override
+    public int hashCode() {
+        return toString().hashCode();
+    }
+}
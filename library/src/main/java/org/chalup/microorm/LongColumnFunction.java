@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm;
+
+import android.database.Cursor;
+
+import org.chalup.microorm.guava.Function;
+
+/**
+ * {@link Function} reading the value of single column from the current
+ * {@link Cursor} row as {@code long}; use {@link #applyAsLong(Cursor)}
+ * to avoid boxing. The null values are read as 0. The column index is
+ * resolved once per {@link Cursor} layout. You can get instances of this
+ * class with {@link MicroOrm#getColumn(String)}.
+ */
+public class LongColumnFunction implements Function<Cursor, Long> {
+
+    private final ColumnBinding mColumn;
+
+    LongColumnFunction(String columnName) {
+        mColumn = new ColumnBinding(columnName);
+    }
+
+    public long applyAsLong(Cursor c) {
+        return c.getLong(mColumn.getColumnIndex(c));
+    }
+
+    @Override
+    public Long apply(Cursor c) {
+        return applyAsLong(c);
+    }
+
+    /**
+     * Reads the column values from all rows of the {@link Cursor}.
+     *
+     * @param c a valid {@link Cursor}; the provided {@link Cursor} will not be
+     *          closed
+     * @return the array of column values
+     */
+    public long[] toArray(Cursor c) {
+        if (c == null || !c.moveToFirst()) {
+            return new long[0];
+        }
+
+        int columnIndex = mColumn.getColumnIndex(c);
+        long[] result = new long[c.getCount()];
+        int count = 0;
+        do {
+            result[count++] = c.getLong(columnIndex);
+        } while (c.moveToNext());
+        return result;
+    }
+}
@@ -17,19 +17,36 @@
 package org.chalup.microorm;
 
 import android.content.ContentValues;
+import android.database.CharArrayBuffer;
 import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.provider.BaseColumns;
 
 import org.chalup.microorm.annotations.DBIgnore;
+import org.chalup.microorm.annotations.Dictionary;
 import org.chalup.microorm.annotations.Embedded;
+import org.chalup.microorm.annotations.Interned;
+import org.chalup.microorm.annotations.Lazy;
+import org.chalup.microorm.annotations.Packed;
 import org.chalup.microorm.guava.Function;
 import org.chalup.microorm.guava.Preconditions;
 
+import java.io.InputStream;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
 
 /**
  * This is the main class for using MicroOrm. MicroOrm is typically used by
@@ -57,9 +74,28 @@ public class MicroOrm {
         return adapter.fromCursor(c, adapter.createInstance());
     }
 
+    /**
+     * Creates an object of the specified type from the current row in
+     * {@link Cursor}, reading the columns with names prefixed with given
+     * {@code prefix}. This allows creating multiple objects from the single
+     * row of joined tables; see
+     * {@link #getProjection(Class, String, String)}.
+     *
+     * @param <T>    the type of the desired object
+     * @param c      an open {@link Cursor} with position set to valid row
+     * @param klass  The {@link Class} of the desired object
+     * @param prefix the prefix of the column names, e.g. {@code "p_"}
+     * @return an object of type T created from the current row in {@link Cursor}
+     */
+    public <T> T fromCursor(Cursor c, Class<T> klass, String prefix) {
+        DaoAdapter<T> adapter = getAdapter(klass, prefix);
+        return adapter.fromCursor(c, adapter.createInstance());
+    }
+
     /**
      * Fills the field in the provided object with data from the current row in
-     * {@link Cursor}.
+     * {@link Cursor}. The embedded objects already held by the provided object
+     * are filled in place.
      *
      * @param <T>    the type of the provided object
      * @param c      an open {@link Cursor} with position set to valid row
@@ -71,6 +107,40 @@ public class MicroOrm {
         return ((DaoAdapter<T>) getAdapter(object.getClass())).fromCursor(c, object);
     }
 
+    /**
+     * Creates an object of the specified type from the current row in
+     * {@link Cursor}, which may contain only some of the columns from
+     * {@link #getProjection(Class)}. The fields backed by the missing columns
+     * keep the values assigned by the object constructor. The missing columns
+     * are determined once per {@link Cursor} layout.
+     *
+     * @param <T>   the type of the desired object
+     * @param c     an open {@link Cursor} with position set to valid row
+     * @param klass The {@link Class} of the desired object
+     * @return an object of type T created from the current row in {@link Cursor}
+     */
+    public <T> T fromCursorSparse(Cursor c, Class<T> klass) {
+        DaoAdapter<T> adapter = getAdapter(klass);
+        return adapter.fromCursor(c, adapter.getSparseColumnIndices(c), 0, adapter.createInstance());
+    }
+
+    /**
+     * Fills the fields in the provided object with data from the current row
+     * in {@link Cursor}, which may contain only some of the columns from
+     * {@link #getProjection(Class)}. The fields backed by the missing columns
+     * are not modified.
+     *
+     * @param <T>    the type of the provided object
+     * @param c      an open {@link Cursor} with position set to valid row
+     * @param object the instance to be filled with data
+     * @return the same object for easy chaining
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T fromCursorSparse(Cursor c, T object) {
+        DaoAdapter<T> adapter = (DaoAdapter<T>) getAdapter(object.getClass());
+        return adapter.fromCursor(c, adapter.getSparseColumnIndices(c), 0, object);
+    }
+
     /**
      * Creates the {@link ContentValues} from the provided object.
      *
@@ -96,18 +166,546 @@ public class MicroOrm {
      * {@link Cursor}
      */
     public <T> List<T> listFromCursor(Cursor c, Class<T> klass) {
+        return listFromCursor(c, klass, "");
+    }
+
+    /**
+     * Converts the whole {@link Cursor} into {@link List} of objects of
+     * specified type, reusing the objects from {@code previous} {@link List}
+     * for the rows which did not change. The rows are matched by the value of
+     * {@code keyField}; a cheap hash of the raw column values is computed for
+     * each row and the new object is created only if there was no object with
+     * the same key in {@code previous} {@link List}, or the hash of its row
+     * differs.
+     * <p>
+     * The hashes are remembered by the {@link List} returned from
+     * {@link RemapResult#getList()}, which should be passed as
+     * {@code previous} to the next call. If {@code previous} is any other
+     * {@link List}, e.g. the result of {@link #listFromCursor(Cursor, Class)},
+     * the rows are still matched by key, but all retained objects are reported
+     * as changed and recreated. The same happens on Android versions older
+     * than Honeycomb, which do not expose the column types.
+     * <p>
+     * The blob columns are read in full to compute the hash, so for the
+     * tables with large blobs consider mapping them as {@link Lazy} fields,
+     * which are not part of the projection.
+     *
+     * @param <T>      the type of the objects
+     * @param previous the objects created from the previous version of the
+     *                 data; will not be modified
+     * @param c        a valid {@link Cursor}; the provided {@link Cursor} will
+     *                 not be closed
+     * @param klass    The {@link Class} of the objects
+     * @param keyField the name of the integral field uniquely identifying the
+     *                 objects; must be a field of {@code klass} itself if
+     *                 {@code previous} was not returned from this method
+     * @return the {@link RemapResult} with the new {@link List} of objects and
+     * the positions of inserted, removed, changed and moved objects
+     */
+    public <T> RemapResult<T> remapFromCursor(List<T> previous, Cursor c, Class<T> klass, String keyField) {
+        Preconditions.checkNotNull(previous);
+        Preconditions.checkNotNull(c);
+        Preconditions.checkNotNull(keyField);
+
+        return Remapper.remap(previous, c, klass, getAdapter(klass), keyField);
+    }
+
+    /**
+     * Loads the objects of specified type with given keys. See
+     * {@link #loadAll(SQLiteDatabase, String, String, Class, long[])} for
+     * details; this method assumes the rows are keyed by
+     * {@link BaseColumns#_ID} column.
+     */
+    public <T> List<T> loadAll(SQLiteDatabase db, String table, Class<T> klass, long[] keys) {
+        return loadAll(db, table, BaseColumns._ID, klass, keys);
+    }
+
+    /**
+     * Loads the objects of specified type with given keys. The rows are
+     * fetched with chunked {@code IN (...)} queries or, for large number of
+     * keys, by joining the table with temporary table containing the keys.
+     *
+     * @param <T>       the type of the desired objects
+     * @param db        the database containing the rows
+     * @param table     the table containing the rows
+     * @param keyColumn the column in {@code table} holding the keys
+     * @param klass     The {@link Class} of the desired objects
+     * @param keys      the keys of rows to load
+     * @return the {@link List} of objects in order of {@code keys}; there are
+     * no entries for keys of non-existing rows
+     */
+    public <T> List<T> loadAll(SQLiteDatabase db, String table, String keyColumn, Class<T> klass, long[] keys) {
+        Map<Long, T> objects = loadAllByKey(db, table, keyColumn, klass, keys);
+
+        List<T> result = new ArrayList<>(objects.size());
+        for (long key : keys) {
+            T object = objects.get(key);
+            if (object != null) {
+                result.add(object);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Loads the objects of specified type with given keys. See
+     * {@link #loadAllByKey(SQLiteDatabase, String, String, Class, long[])} for
+     * details; this method assumes the rows are keyed by
+     * {@link BaseColumns#_ID} column.
+     */
+    public <T> Map<Long, T> loadAllByKey(SQLiteDatabase db, String table, Class<T> klass, long[] keys) {
+        return loadAllByKey(db, table, BaseColumns._ID, klass, keys);
+    }
+
+    /**
+     * Loads the objects of specified type with given keys. The rows are
+     * fetched the same way as in
+     * {@link #loadAll(SQLiteDatabase, String, String, Class, long[])}.
+     *
+     * @param <T>       the type of the desired objects
+     * @param db        the database containing the rows
+     * @param table     the table containing the rows
+     * @param keyColumn the column in {@code table} holding the keys
+     * @param klass     The {@link Class} of the desired objects
+     * @param keys      the keys of rows to load
+     * @return the {@link Map} of loaded objects indexed by key
+     */
+    public <T> Map<Long, T> loadAllByKey(SQLiteDatabase db, String table, String keyColumn, Class<T> klass, long[] keys) {
+        Preconditions.checkNotNull(db);
+        Preconditions.checkNotNull(table);
+        Preconditions.checkNotNull(keyColumn);
+
+        Map<Long, T> result = new HashMap<>();
+        KeyedQueries.loadByKeys(db, table, keyColumn, KeyedQueries.sortedDistinct(keys, keys.length), getAdapter(klass), result);
+        return result;
+    }
+
+    /**
+     * Convenience method for converting the whole {@link Cursor} into
+     * {@link List} of objects of specified type, reading the columns with
+     * names prefixed with given {@code prefix}.
+     *
+     * @param <T>    the type of the provided object
+     * @param c      a valid {@link Cursor}; the provided {@link Cursor} will
+     *               not be closed
+     * @param klass  The {@link Class} of the desired object
+     * @param prefix the prefix of the column names, e.g. {@code "p_"}
+     * @return the {@link List} of object of type T created from the entire
+     * {@link Cursor}
+     */
+    public <T> List<T> listFromCursor(Cursor c, Class<T> klass, String prefix) {
+        List<T> result = new ArrayList<>();
+
+        if (c != null && c.moveToFirst()) {
+            DaoAdapter<T> adapter = getAdapter(klass, prefix);
+            int[] columnIndices = adapter.getColumnIndices(c);
+            do {
+                result.add(adapter.fromCursor(c, columnIndices, 0, adapter.createInstance()));
+            } while (c.moveToNext());
+        }
+
+        return result;
+    }
+
+    /**
+     * Converts the whole {@link Cursor}, which may contain only some of the
+     * columns from {@link #getProjection(Class)}, into {@link List} of objects
+     * of specified type. See {@link #fromCursorSparse(Cursor, Class)} for
+     * details.
+     *
+     * @param <T>   the type of the desired objects
+     * @param c     a valid {@link Cursor}; the provided {@link Cursor} will
+     *              not be closed
+     * @param klass The {@link Class} of the desired objects
+     * @return the {@link List} of object of type T created from the entire
+     * {@link Cursor}
+     */
+    public <T> List<T> listFromCursorSparse(Cursor c, Class<T> klass) {
+        List<T> result = new ArrayList<>();
+
+        if (c != null && c.moveToFirst()) {
+            DaoAdapter<T> adapter = getAdapter(klass);
+            int[] columnIndices = adapter.getSparseColumnIndices(c);
+            do {
+                result.add(adapter.fromCursor(c, columnIndices, 0, adapter.createInstance()));
+            } while (c.moveToNext());
+        }
+
+        return result;
+    }
+
+    /**
+     * Converts the whole {@link Cursor} into {@link LongObjectMap} of objects
+     * of specified type keyed by the value of {@code keyField}. The map is
+     * sized for {@link Cursor#getCount()} entries up front and the keys are
+     * never boxed. If multiple rows have the same key, the object created from
+     * the last one is kept.
+     *
+     * @param <T>      the type of the desired objects
+     * @param c        a valid {@link Cursor}; the provided {@link Cursor} will
+     *                 not be closed
+     * @param klass    The {@link Class} of the desired objects
+     * @param keyField the name of the integral field identifying the objects,
+     *                 or the path of the embedded object field, e.g.
+     *                 {@code "owner.id"}
+     * @return the {@link LongObjectMap} of objects of type T created from the
+     * entire {@link Cursor}
+     */
+    public <T> LongObjectMap<T> mapFromCursor(Cursor c, Class<T> klass, String keyField) {
+        DaoAdapter<T> adapter = getAdapter(klass);
+        int keyProjectionIndex = adapter.getProjectionIndex(keyField);
+
+        if (c == null) {
+            return new LongObjectMap<>();
+        }
+
+        LongObjectMap<T> result = new LongObjectMap<>(Math.max(c.getCount(), 0));
+        if (c.moveToFirst()) {
+            int[] columnIndices = adapter.getColumnIndices(c);
+            int keyColumnIndex = columnIndices[keyProjectionIndex];
+            do {
+                result.put(c.getLong(keyColumnIndex), adapter.fromCursor(c, columnIndices, 0, adapter.createInstance()));
+            } while (c.moveToNext());
+        }
+
+        return result;
+    }
+
+    /**
+     * Same as {@link #mapFromCursor(Cursor, Class, String)}, but returns
+     * {@link IntObjectMap} keyed by the {@code int} values of {@code keyField}.
+     */
+    public <T> IntObjectMap<T> intMapFromCursor(Cursor c, Class<T> klass, String keyField) {
+        DaoAdapter<T> adapter = getAdapter(klass);
+        int keyProjectionIndex = adapter.getProjectionIndex(keyField);
+
+        if (c == null) {
+            return new IntObjectMap<>();
+        }
+
+        IntObjectMap<T> result = new IntObjectMap<>(Math.max(c.getCount(), 0));
+        if (c.moveToFirst()) {
+            int[] columnIndices = adapter.getColumnIndices(c);
+            int keyColumnIndex = columnIndices[keyProjectionIndex];
+            do {
+                result.put(c.getInt(keyColumnIndex), adapter.fromCursor(c, columnIndices, 0, adapter.createInstance()));
+            } while (c.moveToNext());
+        }
+
+        return result;
+    }
+
+    /**
+     * Converts the rows of the whole {@link Cursor} accepted by specified
+     * {@link RowFilter} into {@link List} of objects of specified type. The
+     * filter is called before the object is created, so the rejected rows
+     * cost only the column reads done by the filter.
+     *
+     * @param <T>    the type of the desired objects
+     * @param c      a valid {@link Cursor}; the provided {@link Cursor} will
+     *               not be closed
+     * @param klass  The {@link Class} of the desired objects
+     * @param filter the {@link RowFilter} deciding which rows are converted
+     * @return the {@link List} of object of type T created from the accepted
+     * rows of the {@link Cursor}
+     */
+    public <T> List<T> listFromCursor(Cursor c, Class<T> klass, RowFilter filter) {
+        Preconditions.checkNotNull(filter);
+
         List<T> result = new ArrayList<>();
 
         if (c != null && c.moveToFirst()) {
             DaoAdapter<T> adapter = getAdapter(klass);
+            int[] columnIndices = adapter.getColumnIndices(c);
+            RowAccessor row = new RowAccessor(adapter, mTypeAdapters);
+            row.bind(c, columnIndices, 0);
             do {
-                result.add(adapter.fromCursor(c, adapter.createInstance()));
+                if (filter.accept(row)) {
+                    result.add(adapter.fromCursor(c, columnIndices, 0, adapter.createInstance()));
+                }
             } while (c.moveToNext());
         }
 
         return result;
     }
 
+    /**
+     * Converts the whole {@link Cursor} into {@link List} of objects of
+     * specified type, creating the objects on the provided {@link Executor}
+     * while the calling thread advances the {@link Cursor}. The raw column
+     * values are copied into a fixed pool of buffers, so the memory overhead
+     * does not depend on the {@link Cursor} size. The objects are returned in
+     * the {@link Cursor} order.
+     * <p>
+     * This pays off when creating the objects is expensive compared to reading
+     * the {@link Cursor}, e.g. for entities with costly custom
+     * {@link TypeAdapter}s. The {@link TypeAdapter}s must not depend on the
+     * position of the {@link Cursor} they read from. Before Honeycomb the
+     * {@link Cursor} is converted on the calling thread.
+     *
+     * @param <T>         the type of the desired objects
+     * @param c           a valid {@link Cursor}; the provided {@link Cursor}
+     *                    will not be closed
+     * @param klass       The {@link Class} of the desired objects
+     * @param executor    the {@link Executor} running the workers creating the
+     *                    objects on other threads; the workers it runs on the
+     *                    calling thread exit immediately, and if all of them
+     *                    do, the {@link Cursor} is converted on the calling
+     *                    thread
+     * @param parallelism the number of workers creating the objects
+     * @return the {@link List} of object of type T created from the entire
+     * {@link Cursor}
+     */
+    public <T> List<T> listFromCursor(Cursor c, Class<T> klass, Executor executor, int parallelism) {
+        Preconditions.checkNotNull(executor);
+        Preconditions.checkArgument(parallelism > 0, "Parallelism must be positive, was %s", parallelism);
+
+        if (c == null || !ColumnTypes.SUPPORTED) {
+            return listFromCursor(c, klass);
+        }
+        return PipelinedMapper.listFromCursor(c, getAdapter(klass), executor, parallelism);
+    }
+
+    /**
+     * Resolves the references to other entities held by the provided objects
+     * with as few queries as possible. See
+     * {@link #prefetch(SQLiteDatabase, List, String, String, String, String)}
+     * for details; this method assumes the referenced entities are keyed by
+     * {@link BaseColumns#_ID} column.
+     */
+    public <T> List<T> prefetch(SQLiteDatabase db, List<T> objects, String keyField, String referenceField, String table) {
+        return prefetch(db, objects, keyField, referenceField, table, BaseColumns._ID);
+    }
+
+    /**
+     * Resolves the references to other entities held by the provided objects
+     * with as few queries as possible. The distinct values of {@code keyField}
+     * are collected from all objects, the referenced rows are fetched from
+     * {@code table} with chunked {@code IN (...)} queries and the objects
+     * created from these rows are set into {@code referenceField}. The
+     * reference is set to null if the key is null or the referenced row does
+     * not exist.
+     *
+     * @param <T>            the type of the provided objects
+     * @param db             the database containing referenced entities
+     * @param objects        the objects which references should be resolved,
+     *                       e.g. the result of {@link #listFromCursor(Cursor, Class)}
+     * @param keyField       the name of the integral field holding the key of
+     *                       referenced entity
+     * @param referenceField the name of the field for referenced entity; the
+     *                       type of this field determines the type of objects
+     *                       created from referenced rows. The field should be
+     *                       annotated with {@link DBIgnore}.
+     * @param table          the table containing referenced entities
+     * @param keyColumn      the column in {@code table} holding the keys
+     * @return the same {@link List} for easy chaining
+     */
+    public <T> List<T> prefetch(SQLiteDatabase db, List<T> objects, String keyField, String referenceField, String table, String keyColumn) {
+        Preconditions.checkNotNull(db);
+        Preconditions.checkNotNull(table);
+        Preconditions.checkNotNull(keyColumn);
+
+        if (objects.isEmpty()) {
+            return objects;
+        }
+
+        Class<?> klass = objects.get(0).getClass();
+        Field key = Fields.findField(klass, keyField);
+        Field reference = Fields.findField(klass, referenceField);
+        Preconditions.checkArgument(Fields.isIntegral(key.getType()), "Field %s is not an integral type", keyField);
+
+        try {
+            long[] keys = new long[objects.size()];
+            int count = 0;
+            for (T object : objects) {
+                Number value = (Number) key.get(object);
+                if (value != null) {
+                    keys[count++] = value.longValue();
+                }
+            }
+
+            Map<Long, Object> referencedObjects = new HashMap<>();
+            KeyedQueries.loadByKeys(db, table, keyColumn, KeyedQueries.sortedDistinct(keys, count), getAdapter(reference.getType()), referencedObjects);
+
+            for (T object : objects) {
+                Number value = (Number) key.get(object);
+                reference.set(object, value != null ? referencedObjects.get(value.longValue()) : null);
+            }
+        } catch (IllegalAccessException e) {
+            throw new AssertionError(e);
+        }
+
+        return objects;
+    }
+
+    /**
+     * Loads the values of {@link Lazy} field for all provided objects with as
+     * few queries as possible. The keys of not yet loaded {@link LazyField}s
+     * are collected from all objects and the column is fetched from
+     * {@code table} with chunked {@code IN (...)} queries.
+     *
+     * @param <T>       the type of the provided objects
+     * @param db        the database containing the table
+     * @param table     the table from which the objects were queried
+     * @param objects   the objects which lazy field should be loaded
+     * @param lazyField the name of the {@link LazyField} field annotated with
+     *                  {@link Lazy}
+     * @return the same {@link List} for easy chaining
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> loadLazy(SQLiteDatabase db, String table, List<T> objects, String lazyField) {
+        Preconditions.checkNotNull(db);
+        Preconditions.checkNotNull(table);
+
+        if (objects.isEmpty()) {
+            return objects;
+        }
+
+        Field field = Fields.findField(objects.get(0).getClass(), lazyField);
+        Preconditions.checkArgument(field.isAnnotationPresent(Lazy.class), "Field %s is not annotated with @Lazy", lazyField);
+
+        try {
+            List<LazyField<Object>> handles = new ArrayList<>(objects.size());
+            for (T object : objects) {
+                LazyField<Object> handle = (LazyField<Object>) field.get(object);
+                if (handle != null && !handle.isLoaded()) {
+                    handles.add(handle);
+                }
+            }
+            if (handles.isEmpty()) {
+                return objects;
+            }
+
+            long[] keys = new long[handles.size()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = handles.get(i).mKey;
+            }
+
+            LazyField<Object> first = handles.get(0);
+            Map<Long, Object> values = new HashMap<>();
+            KeyedQueries.loadColumnByKeys(db, table, first.mKeyColumn, KeyedQueries.sortedDistinct(keys, keys.length), first.mColumnName, first.mTypeAdapter, values);
+
+            for (LazyField<Object> handle : handles) {
+                handle.set(values.get(handle.mKey));
+            }
+        } catch (IllegalAccessException e) {
+            throw new AssertionError(e);
+        }
+
+        return objects;
+    }
+
+    /**
+     * Opens the {@link InputStream} reading the blob from the row with given
+     * key. The blob is read in chunks with {@code substr()} queries, so it can
+     * exceed the {@link android.database.CursorWindow} size limit, and only a
+     * single chunk is held in memory.
+     *
+     * @param db         the database containing the table
+     * @param table      the table containing the blob
+     * @param blobColumn the column containing the blob
+     * @param keyColumn  the column uniquely identifying the rows, e.g.
+     *                   {@link BaseColumns#_ID}
+     * @param key        the key of the row containing the blob
+     * @return the {@link InputStream} reading the blob, or null if there is no
+     * row with given key or the blob is NULL
+     */
+    public InputStream openBlobStream(SQLiteDatabase db, String table, String blobColumn, String keyColumn, long key) {
+        Preconditions.checkNotNull(db);
+        Preconditions.checkNotNull(table);
+        Preconditions.checkNotNull(blobColumn);
+        Preconditions.checkNotNull(keyColumn);
+
+        return BlobInputStream.open(db, table, blobColumn, keyColumn, key);
+    }
+
+    /**
+     * Constructs new {@link KeysetIterable} over all rows of the table, which
+     * queries the next page of rows on the iterating thread, when the current
+     * page is consumed. See
+     * {@link #iterate(SQLiteDatabase, String, String, Class, int, Executor)}
+     * for details.
+     */
+    public <T> KeysetIterable<T> iterate(SQLiteDatabase db, String table, String keyColumn, Class<T> klass, int pageSize) {
+        Preconditions.checkNotNull(db);
+        Preconditions.checkNotNull(table);
+        Preconditions.checkNotNull(keyColumn);
+        Preconditions.checkArgument(pageSize > 0, "Page size must be positive, was %s", pageSize);
+
+        return new KeysetIterable<>(db, table, keyColumn, getAdapter(klass), pageSize, null, null, mTypeAdapters);
+    }
+
+    /**
+     * Constructs new {@link KeysetIterable} over all rows of the table, which
+     * creates the objects of specified type page by page, keeping the memory
+     * usage constant regardless of the table size.
+     *
+     * @param <T>       the type of the desired objects
+     * @param db        the database containing the table
+     * @param table     the table to iterate over
+     * @param keyColumn the column with unique values determining the order of
+     *                  iteration, e.g. {@code rowid}
+     * @param klass     The {@link Class} of the desired objects
+     * @param pageSize  the maximum number of rows fetched with single query
+     * @param executor  the {@link Executor} on which the next page is queried
+     *                  while the current one is consumed, e.g. the shared
+     *                  thread pool; the page is queried on the iterating
+     *                  thread instead if the database is in transaction
+     * @return the {@link KeysetIterable} over all rows of the table
+     */
+    public <T> KeysetIterable<T> iterate(SQLiteDatabase db, String table, String keyColumn, Class<T> klass, int pageSize, Executor executor) {
+        Preconditions.checkNotNull(db);
+        Preconditions.checkNotNull(table);
+        Preconditions.checkNotNull(keyColumn);
+        Preconditions.checkNotNull(executor);
+        Preconditions.checkArgument(pageSize > 0, "Page size must be positive, was %s", pageSize);
+
+        return new KeysetIterable<>(db, table, keyColumn, getAdapter(klass), pageSize, executor, null, mTypeAdapters);
+    }
+
+    /**
+     * Same as {@link #iterate(SQLiteDatabase, String, String, Class, int, Executor)},
+     * but skips the rows rejected by specified {@link RowFilter} without
+     * creating the objects from them. The {@code executor} may be null, in
+     * which case the pages are queried on the iterating thread.
+     */
+    public <T> KeysetIterable<T> iterate(SQLiteDatabase db, String table, String keyColumn, Class<T> klass, int pageSize, Executor executor, RowFilter filter) {
+        Preconditions.checkNotNull(db);
+        Preconditions.checkNotNull(table);
+        Preconditions.checkNotNull(keyColumn);
+        Preconditions.checkNotNull(filter);
+        Preconditions.checkArgument(pageSize > 0, "Page size must be positive, was %s", pageSize);
+
+        return new KeysetIterable<>(db, table, keyColumn, getAdapter(klass), pageSize, executor, filter, mTypeAdapters);
+    }
+
+    /**
+     * Constructs new {@link TailMapper} for append-only table, which identifies
+     * the rows by {@code rowid}. See
+     * {@link #getTailMapper(Class, String, String)} for details.
+     */
+    public <T> TailMapper<T> getTailMapper(Class<T> klass, String table) {
+        return getTailMapper(klass, table, "rowid");
+    }
+
+    /**
+     * Constructs new {@link TailMapper} converting the rows of append-only
+     * table into growing {@link List} of objects of specified type.
+     *
+     * @param <T>       the type of the desired objects
+     * @param klass     The {@link Class} of the desired objects
+     * @param table     the append-only table
+     * @param keyColumn the integer column which value grows with every
+     *                  appended row
+     * @return the {@link TailMapper} with no mapped objects
+     */
+    public <T> TailMapper<T> getTailMapper(Class<T> klass, String table, String keyColumn) {
+        Preconditions.checkNotNull(table);
+        Preconditions.checkNotNull(keyColumn);
+
+        return new TailMapper<>(getAdapter(klass), table, keyColumn);
+    }
+
     /**
      * Method for acquiring the {@link Function} converting the {@link Cursor}
      * row into object of specified type.
@@ -128,6 +726,93 @@ public class MicroOrm {
         };
     }
 
+    /**
+     * Method for acquiring the {@link Function} converting the {@link Cursor}
+     * row into object of specified type, reading the columns with names
+     * prefixed with given {@code prefix}.
+     *
+     * @param <T>    the type of the provided object
+     * @param klass  The {@link Class} of the function output type
+     * @param prefix the prefix of the column names, e.g. {@code "p_"}
+     * @return the {@link Function} converting {@link Cursor} row into object
+     * of type T.
+     */
+    public <T> Function<Cursor, T> getFunctionFor(final Class<T> klass, final String prefix) {
+        return new Function<Cursor, T>() {
+            private final DaoAdapter<T> mAdapter = getAdapter(klass, prefix);
+
+            @Override
+            public T apply(Cursor c) {
+                return mAdapter.fromCursor(c, mAdapter.createInstance());
+            }
+        };
+    }
+
+    /**
+     * Method for acquiring the {@link Function} converting the {@link Cursor}
+     * row into object of specified type, or returning null for the rows
+     * rejected by specified {@link RowFilter}.
+     *
+     * @param <T>    the type of the provided object
+     * @param klass  The {@link Class} of the function output type
+     * @param filter the {@link RowFilter} deciding which rows are converted
+     * @return the {@link Function} converting {@link Cursor} row into object
+     * of type T, or null if the row was rejected. The {@link Function} must
+     * not be used concurrently from multiple threads.
+     */
+    public <T> Function<Cursor, T> getFunctionFor(final Class<T> klass, final RowFilter filter) {
+        Preconditions.checkNotNull(filter);
+
+        return new Function<Cursor, T>() {
+            private final DaoAdapter<T> mAdapter = getAdapter(klass);
+            private final RowAccessor mRow = new RowAccessor(mAdapter, mTypeAdapters);
+
+            @Override
+            public T apply(Cursor c) {
+                int[] columnIndices = mAdapter.getColumnIndices(c);
+                mRow.bind(c, columnIndices, 0);
+                return filter.accept(mRow)
+                        ? mAdapter.fromCursor(c, columnIndices, 0, mAdapter.createInstance())
+                        : null;
+            }
+        };
+    }
+
+    /**
+     * Constructs new {@link Aggregation} computing aggregate values of
+     * specified field over {@link Cursor} rows without creating the objects.
+     *
+     * @param <T>       the type of the entity
+     * @param klass     The {@link Class} of the entity
+     * @param fieldPath the name of the aggregated field, or the path of the
+     *                  embedded object field, e.g. {@code "address.city"}
+     * @return the {@link Aggregation} of specified field
+     * @throws IllegalArgumentException if there is no such field or the field
+     *                                  is not backed by single column
+     */
+    public <T> Aggregation aggregate(Class<T> klass, String fieldPath) {
+        Preconditions.checkNotNull(fieldPath);
+        return new Aggregation(getAdapter(klass), fieldPath);
+    }
+
+    /**
+     * Constructs new {@link PolymorphicMapper} creating objects of subclasses
+     * of specified type from {@link Cursor} rows, depending on the value of
+     * {@code discriminatorColumn}.
+     *
+     * @param <T>                 the common base type of created objects
+     * @param klass               The {@link Class} of the common base type
+     * @param discriminatorColumn the column determining the type of the
+     *                            object created from the row
+     * @return the {@link PolymorphicMapper} with no registered subclasses
+     */
+    public <T> PolymorphicMapper<T> getPolymorphicMapper(Class<T> klass, String discriminatorColumn) {
+        Preconditions.checkNotNull(klass);
+        Preconditions.checkNotNull(discriminatorColumn);
+
+        return new PolymorphicMapper<>(this, discriminatorColumn);
+    }
+
     /**
      * Constructs {@link Function} converting single column in {@link Cursor}
      * row into object of given type. You can get builder instances with
@@ -137,10 +822,28 @@ public class MicroOrm {
         /**
          * @param <T>   the type of the requested object
          * @param klass The {@link Class} of the function output type
-         * @return the {@link Function} converting {@link Cursor} row into object
-         * of type T using {@link TypeAdapter}s registered in current
+         * @return the {@link ColumnFunction} converting {@link Cursor} row into
+         * object of type T using {@link TypeAdapter}s registered in current
+         */
+        <T> ColumnFunction<T> as(Class<T> klass);
+
+        /**
+         * @return the {@link LongColumnFunction} reading the column as
+         * {@code long}
          */
-        <T> Function<Cursor, T> as(Class<T> klass);
+        LongColumnFunction asLong();
+
+        /**
+         * @return the {@link IntColumnFunction} reading the column as
+         * {@code int}
+         */
+        IntColumnFunction asInt();
+
+        /**
+         * @return the {@link DoubleColumnFunction} reading the column as
+         * {@code double}
+         */
+        DoubleColumnFunction asDouble();
     }
 
     /**
@@ -153,21 +856,106 @@ public class MicroOrm {
         return new ColumnFunctionBuilder() {
             @SuppressWarnings("unchecked")
             @Override
-            public <T> Function<Cursor, T> as(Class<T> klass) {
+            public <T> ColumnFunction<T> as(Class<T> klass) {
                 Preconditions.checkArgument(mTypeAdapters.containsKey(klass));
 
-                final TypeAdapter<T> adapter = (TypeAdapter<T>) mTypeAdapters.get(klass);
+                return new ColumnFunction<>(columnName, klass, (TypeAdapter<T>) mTypeAdapters.get(klass));
+            }
 
-                return new Function<Cursor, T>() {
-                    @Override
-                    public T apply(Cursor c) {
-                        return adapter.fromCursor(c, columnName);
-                    }
-                };
+            @Override
+            public LongColumnFunction asLong() {
+                return new LongColumnFunction(columnName);
+            }
+
+            @Override
+            public IntColumnFunction asInt() {
+                return new IntColumnFunction(columnName);
+            }
+
+            @Override
+            public DoubleColumnFunction asDouble() {
+                return new DoubleColumnFunction(columnName);
             }
         };
     }
 
+    /**
+     * Returns the {@link PartialMapping} mapping only the specified fields of
+     * given type, together with the matching narrowed projection. The
+     * {@link PartialMapping} is cached for the type and the set of fields.
+     *
+     * @param <T>        the type of the desired objects
+     * @param klass      The {@link Class} of the desired objects
+     * @param fieldPaths the names of the selected fields; the fields of
+     *                   embedded objects are specified by path, e.g.
+     *                   {@code "address.city"}, and selecting the embedded
+     *                   object field selects all its fields
+     * @return the {@link PartialMapping} for the specified fields
+     * @throws IllegalArgumentException if any of the specified fields does not
+     *                                  exist
+     */
+    @SuppressWarnings("unchecked")
+    public <T> PartialMapping<T> getPartialMapping(Class<T> klass, String... fieldPaths) {
+        Preconditions.checkArgument(fieldPaths.length > 0, "At least one field has to be selected");
+
+        Map<Set<String>, PartialMapping<?>> cache = mPartialMappingCache.get(klass);
+        if (cache == null) {
+            cache = new HashMap<>();
+            mPartialMappingCache.put(klass, cache);
+        }
+
+        Set<String> fields = new HashSet<>(Arrays.asList(fieldPaths));
+        PartialMapping<?> cached = cache.get(fields);
+        if (cached != null) {
+            return (PartialMapping<T>) cached;
+        }
+
+        PartialMapping<T> partialMapping = new PartialMapping<>(getAdapter(klass), fields);
+        cache.put(fields, partialMapping);
+        return partialMapping;
+    }
+
+    /**
+     * Returns the {@link ProjectionProfiler} recording which fields of given
+     * type are read by the code using them. The {@link ProjectionProfiler} is
+     * created once per type.
+     *
+     * @param <T>   the type of the profiled entity
+     * @param klass The {@link Class} of the profiled entity
+     * @return the {@link ProjectionProfiler} for specified type
+     */
+    @SuppressWarnings("unchecked")
+    public <T> ProjectionProfiler<T> getProjectionProfiler(Class<T> klass) {
+        ProjectionProfiler<?> cached = mProjectionProfilers.get(klass);
+        if (cached != null) {
+            return (ProjectionProfiler<T>) cached;
+        }
+
+        ProjectionProfiler<T> profiler = new ProjectionProfiler<>(klass, getAdapter(klass));
+        mProjectionProfilers.put(klass, profiler);
+        return profiler;
+    }
+
+    /**
+     * Returns the {@link RowViewMapping} creating the implementations of given
+     * interface, which decode the columns only when their getters are called.
+     *
+     * @param viewInterface the interface with getter methods, e.g.
+     *                      {@code String getTitle()}
+     * @return the {@link RowViewMapping} for given interface
+     */
+    @SuppressWarnings("unchecked")
+    public <V> RowViewMapping<V> getRowViewMapping(Class<V> viewInterface) {
+        RowViewMapping<?> cached = mRowViewMappings.get(viewInterface);
+        if (cached != null) {
+            return (RowViewMapping<V>) cached;
+        }
+
+        RowViewMapping<V> mapping = new RowViewMapping<>(viewInterface, mTypeAdapters);
+        mRowViewMappings.put(viewInterface, mapping);
+        return mapping;
+    }
+
     /**
      * Returns an array containing column names needed by {@link MicroOrm} to
      * successfully create an object of the specified type from {@link Cursor}.
@@ -180,51 +968,139 @@ public class MicroOrm {
         return getAdapter(klass).getProjection();
     }
 
+    /**
+     * Returns an array containing column names needed by {@link MicroOrm} to
+     * successfully create an object of the specified type from {@link Cursor}
+     * using {@link #fromCursor(Cursor, Class, String)}. Each column is aliased
+     * with prefixed name, i.e. the projection contains entries like
+     * {@code table.COLUMN AS prefixCOLUMN}.
+     *
+     * @param klass  The {@link Class} of the object, for which the projection
+     *               should be generated
+     * @param table  the name or alias of the table containing the columns; may
+     *               be null if the column names are not ambiguous
+     * @param prefix the prefix of the column names, e.g. {@code "p_"}
+     * @return the {@link String[]} containing aliased column names
+     */
+    public <T> String[] getProjection(Class<T> klass, String table, String prefix) {
+        Preconditions.checkNotNull(prefix);
+
+        String[] projection = getAdapter(klass).getProjection();
+        for (int i = 0; i < projection.length; i++) {
+            String column = table != null ? table + "." + projection[i] : projection[i];
+            projection[i] = column + " AS " + prefix + projection[i];
+        }
+        return projection;
+    }
+
+    <T> DaoAdapter<T> getAdapter(Class<T> klass) {
+        return getAdapter(klass, "");
+    }
+
     @SuppressWarnings("unchecked")
-    private <T> DaoAdapter<T> getAdapter(Class<T> klass) {
-        DaoAdapter<?> cached = mDaoAdapterCache.get(klass);
+    <T> DaoAdapter<T> getAdapter(Class<T> klass, String prefix) {
+        Preconditions.checkNotNull(prefix);
+
+        Map<Class<?>, DaoAdapter<?>> cache = mDaoAdapterCache.get(prefix);
+        if (cache == null) {
+            cache = new HashMap<>();
+            mDaoAdapterCache.put(prefix, cache);
+        }
+
+        DaoAdapter<?> cached = cache.get(klass);
         if (cached != null) {
             return (DaoAdapter<T>) cached;
         }
 
-        DaoAdapter<T> adapter = buildDaoAdapter(klass);
-        mDaoAdapterCache.put(klass, adapter);
+        DaoAdapter<T> adapter = buildDaoAdapter(klass, prefix);
+        cache.put(klass, adapter);
         return adapter;
     }
 
-    private <T> DaoAdapter<T> buildDaoAdapter(Class<T> klass) {
+    private <T> DaoAdapter<T> buildDaoAdapter(Class<T> klass, String prefix) {
         List<FieldAdapter> fieldAdapters = new ArrayList<>();
+        List<FieldAdapter> lazyFieldAdapters = new ArrayList<>();
         List<EmbeddedFieldInitializer> fieldInitializers = new ArrayList<>();
+        Set<String> packedColumns = new HashSet<>();
+        Map<String, PackedFlagsFieldAdapter> packedFlags = new HashMap<>();
 
         for (Field field : Fields.allFieldsIncludingPrivateAndSuper(klass)) {
             if (field.isAnnotationPresent(DBIgnore.class) || Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())) continue;
             field.setAccessible(true);
 
-            fieldAdapters.add(new ColumnFieldAdapter(field, mTypeAdapters.get(field.getType())));
-
             Embedded embeddedAnnotation = field.getAnnotation(Embedded.class);
             if (embeddedAnnotation != null) {
-                DaoAdapter<?> daoAdapter = getAdapter(field.getType());
-                EmbeddedFieldAdapter fieldAdapter = new EmbeddedFieldAdapter(field, daoAdapter);
+                DaoAdapter<?> daoAdapter = getAdapter(field.getType(), prefix + embeddedAnnotation.prefix());
+                EmbeddedFieldAdapter fieldAdapter = new EmbeddedFieldAdapter(field, daoAdapter, embeddedAnnotation.nullable());
 
                 fieldAdapters.add(fieldAdapter);
-                fieldInitializers.add(new EmbeddedFieldInitializer(field, daoAdapter));
+                if (!embeddedAnnotation.nullable()) {
+                    fieldInitializers.add(new EmbeddedFieldInitializer(field, daoAdapter));
+                }
+            } else if (field.isAnnotationPresent(Packed.class)) {
+                Packed packedAnnotation = field.getAnnotation(Packed.class);
+                String columnName = prefix + packedAnnotation.value();
+
+                PackedFlagsFieldAdapter flagsAdapter = packedFlags.get(columnName);
+                if (flagsAdapter != null && field.getType() != EnumSet.class) {
+                    flagsAdapter.addField(field, packedAnnotation.bit());
+                } else {
+                    Preconditions.checkArgument(packedColumns.add(columnName), "Column %s of @Packed field %s is already used", columnName, field.getName());
+                    if (field.getType() == EnumSet.class) {
+                        fieldAdapters.add(new EnumSetFieldAdapter(field, columnName));
+                    } else {
+                        flagsAdapter = new PackedFlagsFieldAdapter(field, packedAnnotation.bit(), columnName);
+                        fieldAdapters.add(flagsAdapter);
+                        packedFlags.put(columnName, flagsAdapter);
+                    }
+                }
+            } else if (field.isAnnotationPresent(Lazy.class)) {
+                lazyFieldAdapters.add(buildLazyFieldAdapter(klass, field, prefix));
+            } else if (field.isAnnotationPresent(Dictionary.class)) {
+                String dictionaryName = field.getAnnotation(Dictionary.class).value();
+                StringDictionary dictionary = mDictionaries.get(dictionaryName);
+                Preconditions.checkArgument(field.getType() == String.class, "@Dictionary field %s is not a String", field.getName());
+                Preconditions.checkArgument(dictionary != null, "No dictionary %s registered for field %s", dictionaryName, field.getName());
+                fieldAdapters.add(new ColumnFieldAdapter(field, dictionary.getTypeAdapter(), prefix));
+            } else if (field.isAnnotationPresent(Interned.class)) {
+                Preconditions.checkArgument(field.getType() == String.class, "@Interned field %s is not a String", field.getName());
+                fieldAdapters.add(new ColumnFieldAdapter(field, new InterningStringAdapter(), prefix));
+            } else {
+                fieldAdapters.add(new ColumnFieldAdapter(field, mTypeAdapters.get(field.getType()), prefix));
             }
         }
 
+        // lazy fields read the keys from already mapped key fields
+        fieldAdapters.addAll(lazyFieldAdapters);
+
         return new ReflectiveDaoAdapter<>(klass, fieldAdapters, fieldInitializers);
     }
 
+    private LazyFieldAdapter buildLazyFieldAdapter(Class<?> klass, Field field, String prefix) {
+        Preconditions.checkArgument(field.getType() == LazyField.class, "@Lazy field %s is not a LazyField", field.getName());
+
+        Type genericType = field.getGenericType();
+        Type valueType = genericType instanceof ParameterizedType ? ((ParameterizedType) genericType).getActualTypeArguments()[0] : null;
+        TypeAdapter<?> typeAdapter = mTypeAdapters.get(valueType);
+        Preconditions.checkArgument(typeAdapter != null, "No TypeAdapter for the value of @Lazy field %s", field.getName());
+
+        Field keyField = Fields.findField(klass, field.getAnnotation(Lazy.class).keyField());
+        Preconditions.checkArgument(Fields.isIntegral(keyField.getType()), "Field %s is not an integral type", keyField.getName());
+
+        return new LazyFieldAdapter(field, keyField, typeAdapter, prefix);
+    }
+
     /**
      * Constructs a MicroOrm object with default configuration, i.e. with support
      * only for primitives, boxed primitives and String fields.
      */
     public MicroOrm() {
-        this(TYPE_ADAPTERS);
+        this(TYPE_ADAPTERS, Collections.<String, StringDictionary>emptyMap());
     }
 
-    private MicroOrm(Map<Class<?>, TypeAdapter<?>> typeAdapters) {
+    private MicroOrm(Map<Class<?>, TypeAdapter<?>> typeAdapters, Map<String, StringDictionary> dictionaries) {
         mTypeAdapters = typeAdapters;
+        mDictionaries = dictionaries;
     }
 
     /**
@@ -238,6 +1114,8 @@ public class MicroOrm {
     public static class Builder {
         private final Map<Class<?>, TypeAdapter<?>> mTypeAdapters;
 
+        private final Map<String, StringDictionary> mDictionaries = new HashMap<>();
+
         public Builder() {
             mTypeAdapters = new HashMap<>(TYPE_ADAPTERS);
         }
@@ -257,6 +1135,23 @@ public class MicroOrm {
             return this;
         }
 
+        /**
+         * Configures MicroOrm to store the String fields annotated with
+         * {@link Dictionary} with given name as codes of given
+         * {@link StringDictionary}. The same dictionary instance is used by
+         * all {@link MicroOrm}s built by this {@link Builder}, so it is loaded
+         * only once.
+         *
+         * @param name       the name used in {@link Dictionary} annotations
+         * @param dictionary the {@link StringDictionary} encoding the values
+         * @return a reference to this {@link Builder} object to fulfill the
+         * "Builder" pattern
+         */
+        public Builder registerDictionary(String name, StringDictionary dictionary) {
+            mDictionaries.put(Preconditions.checkNotNull(name), Preconditions.checkNotNull(dictionary));
+            return this;
+        }
+
         /**
          * Creates a {@link MicroOrm} instance with support for custom types that
          * were registered with this {@link Builder}. This method is free of
@@ -267,7 +1162,7 @@ public class MicroOrm {
          * registered with this this builder
          */
         public MicroOrm build() {
-            return new MicroOrm(new HashMap<>(mTypeAdapters));
+            return new MicroOrm(new HashMap<>(mTypeAdapters), new HashMap<>(mDictionaries));
         }
     }
 
@@ -294,10 +1189,17 @@ public class MicroOrm {
         typeAdapters.put(String.class, new OptionalTypeAdapter<>(new TypeAdapters.StringAdapter()));
 
         typeAdapters.put(byte[].class, new TypeAdapters.ByteArrayAdapter());
+        typeAdapters.put(CharArrayBuffer.class, new TypeAdapters.CharArrayBufferAdapter());
+        typeAdapters.put(LazyText.class, new TypeAdapters.LazyTextAdapter());
+        typeAdapters.put(ByteBuffer.class, new TypeAdapters.ByteBufferAdapter());
 
         TYPE_ADAPTERS = new HashMap<>(typeAdapters);
     }
 
     private final Map<Class<?>, TypeAdapter<?>> mTypeAdapters;
-    private final Map<Class<?>, DaoAdapter<?>> mDaoAdapterCache = new HashMap<>();
+    private final Map<String, StringDictionary> mDictionaries;
+    private final Map<String, Map<Class<?>, DaoAdapter<?>>> mDaoAdapterCache = new HashMap<>();
+    private final Map<Class<?>, Map<Set<String>, PartialMapping<?>>> mPartialMappingCache = new HashMap<>();
+    private final Map<Class<?>, ProjectionProfiler<?>> mProjectionProfilers = new HashMap<>();
+    private final Map<Class<?>, RowViewMapping<?>> mRowViewMappings = new HashMap<>();
 }
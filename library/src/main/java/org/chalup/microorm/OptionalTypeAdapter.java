@@ -24,7 +24,7 @@ import android.database.Cursor;
  * {@link #fromCursor(android.database.Cursor, String)} if the data in the
  * database column is null, otherwise calls the wrapped adapter.
  */
-public class OptionalTypeAdapter<T> implements TypeAdapter<T> {
+public class OptionalTypeAdapter<T> implements IndexedTypeAdapter<T> {
 
     private final TypeAdapter<T> mWrappedAdapter;
 
@@ -39,6 +39,17 @@ public class OptionalTypeAdapter<T> implements TypeAdapter<T> {
                 : mWrappedAdapter.fromCursor(c, columnName);
     }
 
+    @SuppressWarnings("unchecked")
+    @Override
+    public T fromCursor(Cursor c, int columnIndex) {
+        if (c.isNull(columnIndex)) {
+            return null;
+        }
+        return mWrappedAdapter instanceof IndexedTypeAdapter
+                ? ((IndexedTypeAdapter<T>) mWrappedAdapter).fromCursor(c, columnIndex)
+                : mWrappedAdapter.fromCursor(c, c.getColumnName(columnIndex));
+    }
+
     @Override
     public void toContentValues(ContentValues values, String columnName, T object) {
         if (object != null) {
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+
+import org.chalup.microorm.guava.Preconditions;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Maps the group of boolean fields to the bits of single INTEGER column. The
+ * first field of the group is used as {@link #mField}. The NULL column is
+ * read as null for {@link Boolean} fields and as false for primitive ones.
+ */
+class PackedFlagsFieldAdapter extends FieldAdapter {
+
+    private final String mColumnName;
+    private final String[] mColumnNames;
+    private final List<Field> mFields = new ArrayList<>();
+    private long[] mMasks = new long[0];
+    private long mUsedBits;
+
+    PackedFlagsFieldAdapter(Field field, int bit, String columnName) {
+        super(field);
+        mColumnName = columnName;
+        mColumnNames = new String[]{columnName};
+        addField(field, bit);
+    }
+
+    void addField(Field field, int bit) {
+        Preconditions.checkArgument(field.getType() == boolean.class || field.getType() == Boolean.class, "@Packed field %s is not a boolean", field.getName());
+        Preconditions.checkArgument(bit >= 0 && bit < Long.SIZE, "@Packed field %s has invalid bit %s", field.getName(), bit);
+
+        long mask = 1L << bit;
+        Preconditions.checkArgument((mUsedBits & mask) == 0, "Bit %s of column %s is used by multiple fields", bit, mColumnName);
+        mUsedBits |= mask;
+
+        mFields.add(field);
+        mMasks = Arrays.copyOf(mMasks, mMasks.length + 1);
+        mMasks[mMasks.length - 1] = mask;
+    }
+
+    boolean containsField(String fieldName) {
+        for (Field field : mFields) {
+            if (field.getName().equals(fieldName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void setValueFromCursor(Cursor inCursor, int[] columnIndices, int offset, Object outTarget) throws IllegalArgumentException, IllegalAccessException {
+        if (columnIndices[offset] < 0) {
+            return;
+        }
+
+        if (inCursor.isNull(columnIndices[offset])) {
+            for (Field field : mFields) {
+                field.set(outTarget, field.getType().isPrimitive() ? Boolean.FALSE : null);
+            }
+            return;
+        }
+
+        long bits = inCursor.getLong(columnIndices[offset]);
+        for (int i = 0; i < mFields.size(); i++) {
+            mFields.get(i).set(outTarget, (bits & mMasks[i]) != 0);
+        }
+    }
+
+    @Override
+    public void putToContentValues(Object inObject, ContentValues outValues) throws IllegalAccessException {
+        if (inObject == null) {
+            outValues.putNull(mColumnName);
+            return;
+        }
+
+        long bits = 0;
+        for (int i = 0; i < mFields.size(); i++) {
+            Boolean value = (Boolean) mFields.get(i).get(inObject);
+            if (value != null && value) {
+                bits |= mMasks[i];
+            }
+        }
+        outValues.put(mColumnName, bits);
+    }
+
+    @Override
+    protected void putValueToContentValues(Object value, ContentValues outValues) {
+        // the group spans multiple fields, so it is written by the
+        // putToContentValues override and never by the value of mField alone
+        throw new AssertionError("Unreachable");
+    }
+
+    @Override
+    public String[] getColumnNames() {
+        return mColumnNames;
+    }
+
+    @Override
+    public String[] getWritableColumnNames() {
+        return mColumnNames;
+    }
+}
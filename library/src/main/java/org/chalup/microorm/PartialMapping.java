@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm;
+
+import android.database.Cursor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Maps only the selected subset of entity fields, e.g. the fields displayed on
+ * the list screen, so the {@link Cursor} can be queried with the narrowed
+ * projection returned by {@link #getProjection()}. The fields which were not
+ * selected keep the values assigned by the object constructor. You can get
+ * instances of this class with
+ * {@link MicroOrm#getPartialMapping(Class, String...)}.
+ *
+ * @param <T> the type of the created objects
+ */
+public class PartialMapping<T> {
+
+    private final DaoAdapter<T> mAdapter;
+    private final int[] mProjectionIndices;
+    private final String[] mProjection;
+    private final int mFullProjectionLength;
+    private final LayoutCache<int[]> mColumnIndices = new LayoutCache<>();
+
+    PartialMapping(DaoAdapter<T> adapter, Collection<String> fieldPaths) {
+        mAdapter = adapter;
+
+        String[] fullProjection = adapter.getProjection();
+        mFullProjectionLength = fullProjection.length;
+
+        boolean[] selected = new boolean[fullProjection.length];
+        for (String fieldPath : fieldPaths) {
+            for (int projectionIndex : adapter.getProjectionIndices(fieldPath)) {
+                selected[projectionIndex] = true;
+            }
+        }
+
+        int[] projectionIndices = new int[fullProjection.length];
+        int count = 0;
+        for (int i = 0; i < selected.length; i++) {
+            if (selected[i]) {
+                projectionIndices[count++] = i;
+            }
+        }
+        mProjectionIndices = Arrays.copyOf(projectionIndices, count);
+
+        mProjection = new String[count];
+        for (int i = 0; i < count; i++) {
+            mProjection[i] = fullProjection[mProjectionIndices[i]];
+        }
+    }
+
+    /**
+     * Returns the columns backing the selected fields, in the same order as
+     * in {@link MicroOrm#getProjection(Class)}.
+     */
+    public String[] getProjection() {
+        return mProjection.clone();
+    }
+
+    private int[] getColumnIndices(Cursor c) {
+        int[] columnIndices = mColumnIndices.get(c);
+        if (columnIndices == null) {
+            int[] selectedColumnIndices = ColumnIndices.resolve(c, mProjection);
+            columnIndices = new int[mFullProjectionLength];
+            Arrays.fill(columnIndices, -1);
+            for (int i = 0; i < mProjectionIndices.length; i++) {
+                columnIndices[mProjectionIndices[i]] = selectedColumnIndices[i];
+            }
+            mColumnIndices.put(c, columnIndices);
+        }
+        return columnIndices;
+    }
+
+    /**
+     * Creates an object with selected fields read from the current row in
+     * {@link Cursor}.
+     *
+     * @param c an open {@link Cursor} with position set to valid row
+     * @return an object of type T created from the current row in {@link Cursor}
+     */
+    public T fromCursor(Cursor c) {
+        return mAdapter.fromCursor(c, getColumnIndices(c), 0, mAdapter.createInstance());
+    }
+
+    /**
+     * Fills the selected fields in the provided object with data from the
+     * current row in {@link Cursor}. Other fields are not modified.
+     *
+     * @param c      an open {@link Cursor} with position set to valid row
+     * @param object the instance to be filled with data
+     * @return the same object for easy chaining
+     */
+    public T fromCursor(Cursor c, T object) {
+        return mAdapter.fromCursor(c, getColumnIndices(c), 0, object);
+    }
+
+    /**
+     * Converts the whole {@link Cursor} into {@link List} of objects with
+     * selected fields.
+     *
+     * @param c a valid {@link Cursor}; the provided {@link Cursor} will not be
+     *          closed
+     * @return the {@link List} of object of type T created from the entire
+     * {@link Cursor}
+     */
+    public List<T> listFromCursor(Cursor c) {
+        List<T> result = new ArrayList<>();
+
+        if (c != null && c.moveToFirst()) {
+            int[] columnIndices = getColumnIndices(c);
+            do {
+                result.add(mAdapter.fromCursor(c, columnIndices, 0, mAdapter.createInstance()));
+            } while (c.moveToNext());
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm;
+
+import android.database.Cursor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Splits the conversion of {@link Cursor} into {@link List} of objects into
+ * two stages: the calling thread advances the {@link Cursor} and copies the
+ * raw column values into the {@link RowBuffer}s taken from the fixed pool,
+ * while the workers running on the {@link Executor} create the objects from
+ * the filled buffers and return them to the pool.
+ * <p>
+ * The {@link Executor} should run the workers on other threads. The workers
+ * which the {@link Executor} runs on the calling thread, e.g. direct executor
+ * or {@link java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy}, return
+ * immediately, and if none of the workers runs on other thread the
+ * {@link Cursor} is mapped serially on the calling thread.
+ */
+final class PipelinedMapper {
+    private PipelinedMapper() {
+    }
+
+    private static final int BUFFERS_PER_WORKER = 4;
+
+    private static final RowBuffer END = new RowBuffer(new String[0]);
+
+    static <T> List<T> listFromCursor(Cursor c, DaoAdapter<T> adapter, Executor executor, int parallelism) {
+        int count = c.getCount();
+        if (count <= 0 || !c.moveToFirst()) {
+            return new ArrayList<>();
+        }
+
+        final int[] columnIndices = adapter.getColumnIndices(c);
+        final String[] columnNames = c.getColumnNames();
+        final int[] copiedColumns = distinct(columnIndices);
+
+        int bufferCount = parallelism * BUFFERS_PER_WORKER;
+        final BlockingQueue<RowBuffer> free = new ArrayBlockingQueue<>(bufferCount);
+        final BlockingQueue<RowBuffer> filled = new ArrayBlockingQueue<>(bufferCount + parallelism);
+        for (int i = 0; i < bufferCount; i++) {
+            free.add(new RowBuffer(columnNames));
+        }
+
+        final Object[] result = new Object[count];
+        final Throwable[] failure = new Throwable[1];
+        final CountDownLatch finished = new CountDownLatch(parallelism);
+        final Thread producer = Thread.currentThread();
+        final AtomicInteger inline = new AtomicInteger();
+
+        int submitted = 0;
+        try {
+            for (; submitted < parallelism; submitted++) {
+                executor.execute(new Worker<>(adapter, columnNames, columnIndices, free, filled, result, failure, finished, producer, inline));
+            }
+        } catch (RuntimeException e) {
+            // let the already submitted workers finish, they would wait forever otherwise
+            for (int i = 0; i < submitted - inline.get(); i++) {
+                filled.add(END);
+            }
+            throw e;
+        } finally {
+            for (int i = submitted; i < parallelism; i++) {
+                finished.countDown();
+            }
+        }
+
+        int workers = parallelism - inline.get();
+        if (workers == 0) {
+            return mapSerially(c, adapter, columnIndices, count);
+        }
+
+        try {
+            do {
+                RowBuffer buffer = free.take();
+                buffer.copyFrom(c, copiedColumns);
+                filled.put(buffer);
+            } while (c.moveToNext());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while mapping the cursor", e);
+        } finally {
+            for (int i = 0; i < workers; i++) {
+                filled.add(END);
+            }
+        }
+
+        try {
+            finished.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while mapping the cursor", e);
+        }
+
+        synchronized (failure) {
+            if (failure[0] instanceof RuntimeException) {
+                throw (RuntimeException) failure[0];
+            } else if (failure[0] instanceof Error) {
+                throw (Error) failure[0];
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        List<T> list = (List<T>) Arrays.asList(result);
+        return new ArrayList<>(list);
+    }
+
+    private static <T> List<T> mapSerially(Cursor c, DaoAdapter<T> adapter, int[] columnIndices, int count) {
+        List<T> result = new ArrayList<>(count);
+        do {
+            result.add(adapter.fromCursor(c, columnIndices, 0, adapter.createInstance()));
+        } while (c.moveToNext());
+        return result;
+    }
+
+    private static int[] distinct(int[] columnIndices) {
+        int[] sorted = columnIndices.clone();
+        Arrays.sort(sorted);
+
+        int count = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[count++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, count);
+    }
+
+    private static class Worker<T> implements Runnable {
+        private final DaoAdapter<T> mAdapter;
+        private final RowBufferCursor mCursor;
+        private final int[] mColumnIndices;
+        private final BlockingQueue<RowBuffer> mFree;
+        private final BlockingQueue<RowBuffer> mFilled;
+        private final Object[] mResult;
+        private final Throwable[] mFailure;
+        private final CountDownLatch mFinished;
+        private final Thread mProducer;
+        private final AtomicInteger mInline;
+
+        Worker(DaoAdapter<T> adapter, String[] columnNames, int[] columnIndices,
+               BlockingQueue<RowBuffer> free, BlockingQueue<RowBuffer> filled,
+               Object[] result, Throwable[] failure, CountDownLatch finished,
+               Thread producer, AtomicInteger inline) {
+            mAdapter = adapter;
+            mCursor = new RowBufferCursor(columnNames);
+            mColumnIndices = columnIndices;
+            mFree = free;
+            mFilled = filled;
+            mResult = result;
+            mFailure = failure;
+            mFinished = finished;
+            mProducer = producer;
+            mInline = inline;
+        }
+
+        private void fail(Throwable t) {
+            synchronized (mFailure) {
+                if (mFailure[0] == null) {
+                    mFailure[0] = t;
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            if (Thread.currentThread() == mProducer) {
+                // the worker would wait forever for the rows the blocked producer never copies
+                mInline.incrementAndGet();
+                mFinished.countDown();
+                return;
+            }
+
+            boolean failed = false;
+            boolean interrupted = false;
+            try {
+                while (true) {
+                    RowBuffer buffer;
+                    try {
+                        buffer = mFilled.take();
+                    } catch (InterruptedException e) {
+                        // keep draining the buffers, so the producer is never
+                        // blocked waiting for a free one
+                        interrupted = true;
+                        failed = true;
+                        fail(new IllegalStateException("Interrupted while mapping the cursor", e));
+                        continue;
+                    }
+                    if (buffer == END) {
+                        break;
+                    }
+
+                    // after a failure keep draining the buffers, so the
+                    // producer is never blocked waiting for a free one
+                    if (!failed) {
+                        try {
+                            mCursor.setRow(buffer);
+                            mResult[buffer.mPosition] = mAdapter.fromCursor(mCursor, mColumnIndices, 0, mAdapter.createInstance());
+                        } catch (Throwable t) {
+                            failed = true;
+                            fail(t);
+                        }
+                    }
+                    mFree.add(buffer);
+                }
+            } finally {
+                mFinished.countDown();
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm;
+
+import android.database.Cursor;
+
+import org.chalup.microorm.guava.Function;
+import org.chalup.microorm.guava.Preconditions;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates objects of different subclasses of common base class from the
+ * single {@link Cursor}, choosing the subclass for each row by the value of
+ * discriminator column. You can get instances of this class with
+ * {@link MicroOrm#getPolymorphicMapper(Class, String)}, and then invoke
+ * {@link #register(String, Class)} for each subclass.
+ * <p>
+ * The column indices for all registered subclasses are resolved once per
+ * {@link Cursor} layout, and the columns of fields declared in common
+ * superclasses are looked up only once.
+ *
+ * @param <T> the common base type of created objects
+ */
+public class PolymorphicMapper<T> implements Function<Cursor, T> {
+
+    private final MicroOrm mMicroOrm;
+    private final String mDiscriminatorColumn;
+    private final Map<String, DaoAdapter<? extends T>> mAdapters = new HashMap<>();
+    private final LayoutCache<Plan> mPlans = new LayoutCache<>();
+
+    private static class Plan {
+        final int mDiscriminatorIndex;
+        final Map<String, int[]> mColumnIndices;
+
+        Plan(int discriminatorIndex, Map<String, int[]> columnIndices) {
+            mDiscriminatorIndex = discriminatorIndex;
+            mColumnIndices = columnIndices;
+        }
+    }
+
+    PolymorphicMapper(MicroOrm microOrm, String discriminatorColumn) {
+        mMicroOrm = microOrm;
+        mDiscriminatorColumn = discriminatorColumn;
+    }
+
+    /**
+     * Configures this mapper to create objects of given type from rows with
+     * given value of discriminator column.
+     *
+     * @param discriminatorValue the value of discriminator column
+     * @param klass              the {@link Class} of objects created for
+     *                           {@code discriminatorValue}
+     * @return a reference to this {@link PolymorphicMapper} for easy chaining
+     */
+    public PolymorphicMapper<T> register(String discriminatorValue, Class<? extends T> klass) {
+        Preconditions.checkNotNull(discriminatorValue);
+        Preconditions.checkNotNull(klass);
+
+        mAdapters.put(discriminatorValue, mMicroOrm.getAdapter(klass));
+        mPlans.clear();
+        return this;
+    }
+
+    /**
+     * Creates an object from the current row in {@link Cursor}. The type of
+     * the object is determined by the value of discriminator column.
+     *
+     * @param c an open {@link Cursor} with position set to valid row
+     * @return an object created from the current row in {@link Cursor}
+     * @throws IllegalArgumentException if there is no type registered for the
+     *                                  discriminator value in current row
+     */
+    public T fromCursor(Cursor c) {
+        return fromCursor(c, getPlan(c));
+    }
+
+    /**
+     * Converts the whole {@link Cursor} into {@link List} of objects. See
+     * {@link #fromCursor(Cursor)} for details.
+     *
+     * @param c a valid {@link Cursor}; the provided {@link Cursor} will not be
+     *          closed
+     * @return the {@link List} of objects created from the entire
+     * {@link Cursor}
+     */
+    public List<T> listFromCursor(Cursor c) {
+        List<T> result = new ArrayList<>();
+
+        if (c != null && c.moveToFirst()) {
+            Plan plan = getPlan(c);
+            do {
+                result.add(fromCursor(c, plan));
+            } while (c.moveToNext());
+        }
+
+        return result;
+    }
+
+    @Override
+    public T apply(Cursor c) {
+        return fromCursor(c);
+    }
+
+    private T fromCursor(Cursor c, Plan plan) {
+        String discriminatorValue = c.getString(plan.mDiscriminatorIndex);
+
+        DaoAdapter<? extends T> adapter = mAdapters.get(discriminatorValue);
+        if (adapter == null) {
+            throw new IllegalArgumentException("No class registered for " + mDiscriminatorColumn + " = " + discriminatorValue);
+        }
+
+        return fromCursor(c, plan.mColumnIndices.get(discriminatorValue), adapter);
+    }
+
+    private static <S> S fromCursor(Cursor c, int[] columnIndices, DaoAdapter<S> adapter) {
+        return adapter.fromCursor(c, columnIndices, 0, adapter.createInstance());
+    }
+
+    private Plan getPlan(Cursor c) {
+        Plan plan = mPlans.get(c);
+        if (plan == null) {
+            Map<String, Integer> resolvedColumns = new HashMap<>();
+            Map<String, int[]> columnIndices = new HashMap<>();
+
+            for (Map.Entry<String, DaoAdapter<? extends T>> entry : mAdapters.entrySet()) {
+                columnIndices.put(entry.getKey(), ColumnIndices.resolve(c, entry.getValue().getProjection(), resolvedColumns));
+            }
+
+            plan = new Plan(c.getColumnIndexOrThrow(mDiscriminatorColumn), columnIndices);
+            mPlans.put(c, plan);
+        }
+        return plan;
+    }
+}
@@ -0,0 +1,436 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm;
+
+import android.annotation.TargetApi;
+import android.database.CharArrayBuffer;
+import android.database.Cursor;
+import android.os.Build;
+
+import org.chalup.microorm.guava.Preconditions;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the minimal projections for the entity by recording which fields are
+ * actually read by the code using the objects. The objects are created
+ * through the profiler under a tag identifying the call site, e.g. the screen
+ * name, and handed to the code as views: implementations of the interface
+ * with getter methods, which record every read of the backing field. The
+ * getters {@code getFooBar()}, {@code isFooBar()} and {@code fooBar()} return
+ * the field {@code fooBar}; the getter of embedded object field stands for
+ * all its fields. The profiler also measures the amount of data read from
+ * each column, which allows estimating the savings with
+ * {@link #getReport(String)}. You can get instances of this class with
+ * {@link MicroOrm#getProjectionProfiler(Class)}.
+ * <p>
+ * The profiler can either only suggest the projection for the tag with
+ * {@link #getSuggestedProjection(String)}, or, with
+ * {@link #setAutoApply(boolean)}, return it from
+ * {@link #getProjection(String)}. The {@link Cursor} queried with narrowed
+ * projection can be converted only into views: the fields backed by missing
+ * columns are left with values assigned by the object constructor, and
+ * writing such objects back would overwrite the real data. The views are read
+ * only, the reads of the unavailable fields are still recorded and widen the
+ * suggested projection.
+ * <p>
+ * This class is thread safe. It is intended for debug builds: the data
+ * measurement reads every column twice.
+ *
+ * @param <T> the type of the profiled entity
+ */
+public class ProjectionProfiler<T> {
+
+    private final Class<T> mKlass;
+    private final DaoAdapter<T> mAdapter;
+    private final String[] mProjection;
+    private final Map<String, Profile> mProfiles = new HashMap<>();
+    private final Map<Class<?>, Map<Method, Accessor>> mViewAccessors = new HashMap<>();
+    private boolean mAutoApply;
+
+    private static class Profile {
+        final BitSet mReadColumns = new BitSet();
+        final long[] mColumnBytes;
+        long mRowCount;
+
+        Profile(int columnCount) {
+            mColumnBytes = new long[columnCount];
+        }
+    }
+
+    private static class Accessor {
+        final Field mField;
+        final int[] mProjectionIndices;
+
+        Accessor(Field field, int[] projectionIndices) {
+            mField = field;
+            mProjectionIndices = projectionIndices;
+        }
+    }
+
+    ProjectionProfiler(Class<T> klass, DaoAdapter<T> adapter) {
+        mKlass = klass;
+        mAdapter = adapter;
+        mProjection = adapter.getProjection();
+    }
+
+    private Profile getProfile(String tag) {
+        Profile profile = mProfiles.get(tag);
+        if (profile == null) {
+            profile = new Profile(mProjection.length);
+            mProfiles.put(tag, profile);
+        }
+        return profile;
+    }
+
+    /**
+     * Enables or disables returning the suggested projection from
+     * {@link #getProjection(String)}.
+     */
+    public synchronized void setAutoApply(boolean autoApply) {
+        mAutoApply = autoApply;
+    }
+
+    /**
+     * Records that the code identified by {@code tag} reads given field. The
+     * reads through the views returned by
+     * {@link #listFromCursor(String, Cursor, Class)} are recorded
+     * automatically; use this method for the objects returned by
+     * {@link #listFromCursor(String, Cursor)}.
+     *
+     * @param tag       the tag identifying the call site
+     * @param fieldPath the name of the read field; the fields of embedded
+     *                  objects are specified by path, e.g.
+     *                  {@code "address.city"}, and the embedded object field
+     *                  stands for all its fields
+     * @throws IllegalArgumentException if there is no such field
+     */
+    public void recordRead(String tag, String fieldPath) {
+        recordRead(tag, mAdapter.getProjectionIndices(fieldPath));
+    }
+
+    private synchronized void recordRead(String tag, int[] projectionIndices) {
+        BitSet readColumns = getProfile(tag).mReadColumns;
+        for (int projectionIndex : projectionIndices) {
+            readColumns.set(projectionIndex);
+        }
+    }
+
+    /**
+     * Converts the whole {@link Cursor} into {@link List} of objects and
+     * records the amount of data read from each column under given tag. The
+     * reads of the object fields are not recorded, see
+     * {@link #recordRead(String, String)}.
+     *
+     * @param tag the tag identifying the call site
+     * @param c   a valid {@link Cursor} containing all columns from
+     *            {@link MicroOrm#getProjection(Class)}; the provided
+     *            {@link Cursor} will not be closed
+     * @return the {@link List} of objects created from the entire
+     * {@link Cursor}
+     * @throws IllegalArgumentException if the {@link Cursor} does not contain
+     *                                  some of the entity columns
+     */
+    public List<T> listFromCursor(String tag, Cursor c) {
+        List<T> result = new ArrayList<>();
+
+        int[] columnIndices = c != null && c.moveToFirst() ? mAdapter.getColumnIndices(c) : null;
+        readObjects(tag, c, columnIndices, result);
+
+        return result;
+    }
+
+    /**
+     * Converts the whole {@link Cursor} into {@link List} of views recording
+     * the reads of the object fields under given tag, and records the amount
+     * of data read from each column. The {@link Cursor} may contain only some
+     * of the entity columns, e.g. if it was queried with the projection
+     * returned by {@link #getProjection(String)}.
+     *
+     * @param <V>           the interface implemented by the views
+     * @param tag           the tag identifying the call site
+     * @param c             a valid {@link Cursor}; the provided
+     *                      {@link Cursor} will not be closed
+     * @param viewInterface the interface with getter methods returning the
+     *                      entity fields
+     * @return the {@link List} of views of the objects created from the
+     * entire {@link Cursor}
+     * @throws IllegalArgumentException if the interface has methods which are
+     *                                  not getters of the entity fields
+     */
+    public <V> List<V> listFromCursor(String tag, Cursor c, Class<V> viewInterface) {
+        Map<Method, Accessor> accessors = getAccessors(viewInterface);
+
+        List<T> objects = new ArrayList<>();
+        int[] columnIndices = c != null && c.moveToFirst() ? mAdapter.getSparseColumnIndices(c) : null;
+        readObjects(tag, c, columnIndices, objects);
+
+        List<V> result = new ArrayList<>(objects.size());
+        for (T object : objects) {
+            Object view = Proxy.newProxyInstance(viewInterface.getClassLoader(), new Class<?>[]{viewInterface}, new ObjectView(tag, viewInterface, accessors, object));
+            result.add(viewInterface.cast(view));
+        }
+        return result;
+    }
+
+    /**
+     * Reads all rows starting from the current one if {@code columnIndices}
+     * are not null, and adds the measured data to the profile.
+     */
+    private void readObjects(String tag, Cursor c, int[] columnIndices, List<T> result) {
+        long[] columnBytes = new long[mProjection.length];
+
+        if (columnIndices != null) {
+            CharArrayBuffer buffer = ColumnTypes.SUPPORTED ? new CharArrayBuffer(64) : null;
+            do {
+                if (buffer != null) {
+                    measure(c, columnIndices, buffer, columnBytes);
+                }
+                result.add(mAdapter.fromCursor(c, columnIndices, 0, mAdapter.createInstance()));
+            } while (c.moveToNext());
+        }
+
+        synchronized (this) {
+            Profile profile = getProfile(tag);
+            profile.mRowCount += result.size();
+            for (int i = 0; i < columnBytes.length; i++) {
+                profile.mColumnBytes[i] += columnBytes[i];
+            }
+        }
+    }
+
+    private synchronized Map<Method, Accessor> getAccessors(Class<?> viewInterface) {
+        Map<Method, Accessor> accessors = mViewAccessors.get(viewInterface);
+        if (accessors != null) {
+            return accessors;
+        }
+
+        Preconditions.checkArgument(viewInterface.isInterface(), "%s is not an interface", viewInterface.getName());
+        accessors = new HashMap<>();
+        for (Method method : viewInterface.getMethods()) {
+            Preconditions.checkArgument(method.getParameterTypes().length == 0, "Method %s is not a getter", method.getName());
+
+            String propertyName = RowViewMapping.propertyName(method);
+            String fieldName = Character.toLowerCase(propertyName.charAt(0)) + propertyName.substring(1);
+            int[] projectionIndices = mAdapter.getProjectionIndices(fieldName);
+            Field field = Fields.findField(mKlass, fieldName);
+
+            Class<?> returnType = method.getReturnType();
+            boolean compatible = returnType.isPrimitive()
+                    ? returnType == field.getType()
+                    : returnType.isAssignableFrom(Fields.boxed(field.getType()));
+            Preconditions.checkArgument(compatible, "Method %s cannot return the field of type %s", method.getName(), field.getType().getName());
+
+            accessors.put(method, new Accessor(field, projectionIndices));
+        }
+        mViewAccessors.put(viewInterface, accessors);
+        return accessors;
+    }
+
+    private class ObjectView implements InvocationHandler {
+        private final String mTag;
+        private final Class<?> mViewInterface;
+        private final Map<Method, Accessor> mAccessors;
+        private final T mObject;
+
+        ObjectView(String tag, Class<?> viewInterface, Map<Method, Accessor> accessors, T object) {
+            mTag = tag;
+            mViewInterface = viewInterface;
+            mAccessors = accessors;
+            mObject = object;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Accessor accessor = mAccessors.get(method);
+            if (accessor == null) {
+                return invokeObjectMethod(proxy, method, args);
+            }
+
+            recordRead(mTag, accessor.mProjectionIndices);
+            try {
+                return accessor.mField.get(mObject);
+            } catch (IllegalAccessException e) {
+                throw new AssertionError(e);
+            }
+        }
+
+        private Object invokeObjectMethod(Object proxy, Method method, Object[] args) {
+            String name = method.getName();
+            if (name.equals("equals")) {
+                return proxy == args[0];
+            }
+            if (name.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            }
+            if (name.equals("toString")) {
+                return mViewInterface.getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+            }
+            throw new UnsupportedOperationException(method.toString());
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.HONEYCOMB)
+    private static void measure(Cursor c, int[] columnIndices, CharArrayBuffer buffer, long[] columnBytes) {
+        for (int i = 0; i < columnIndices.length; i++) {
+            int columnIndex = columnIndices[i];
+            if (columnIndex < 0) {
+                continue;
+            }
+
+            switch (c.getType(columnIndex)) {
+                case Cursor.FIELD_TYPE_INTEGER:
+                case Cursor.FIELD_TYPE_FLOAT:
+                    columnBytes[i] += 8;
+                    break;
+                case Cursor.FIELD_TYPE_STRING:
+                    c.copyStringToBuffer(columnIndex, buffer);
+                    columnBytes[i] += buffer.sizeCopied;
+                    break;
+                case Cursor.FIELD_TYPE_BLOB:
+                    columnBytes[i] += c.getBlob(columnIndex).length;
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Returns the columns backing the fields read by the code identified by
+     * {@code tag}, in the same order as in
+     * {@link MicroOrm#getProjection(Class)}, or the full projection if no
+     * reads were recorded for the tag.
+     */
+    public synchronized String[] getSuggestedProjection(String tag) {
+        Profile profile = mProfiles.get(tag);
+        if (profile == null || profile.mReadColumns.isEmpty()) {
+            return mProjection.clone();
+        }
+
+        String[] projection = new String[profile.mReadColumns.cardinality()];
+        int count = 0;
+        for (int i = profile.mReadColumns.nextSetBit(0); i >= 0; i = profile.mReadColumns.nextSetBit(i + 1)) {
+            projection[count++] = mProjection[i];
+        }
+        return projection;
+    }
+
+    /**
+     * Returns the projection which should be used to query the data for the
+     * code identified by {@code tag}: the result of
+     * {@link #getSuggestedProjection(String)} if the auto apply is enabled,
+     * otherwise the full projection.
+     */
+    public synchronized String[] getProjection(String tag) {
+        return mAutoApply ? getSuggestedProjection(tag) : mProjection.clone();
+    }
+
+    /**
+     * Returns the {@link Report} summarizing the data recorded under given
+     * tag, or null if nothing was recorded under this tag.
+     */
+    public synchronized Report getReport(String tag) {
+        Profile profile = mProfiles.get(tag);
+        if (profile == null) {
+            return null;
+        }
+
+        List<String> unreadColumns = new ArrayList<>();
+        long totalBytes = 0;
+        long unreadBytes = 0;
+        for (int i = 0; i < mProjection.length; i++) {
+            totalBytes += profile.mColumnBytes[i];
+            if (!profile.mReadColumns.get(i)) {
+                unreadColumns.add(mProjection[i]);
+                unreadBytes += profile.mColumnBytes[i];
+            }
+        }
+
+        return new Report(tag, profile.mRowCount, totalBytes, unreadBytes, unreadColumns.toArray(new String[unreadColumns.size()]));
+    }
+
+    /**
+     * Summary of the data read under single tag. The byte counts are
+     * approximate: numbers count as 8 bytes, text as the number of characters
+     * and blobs as their length. They are not measured before Honeycomb.
+     */
+    public static class Report {
+        private final String mTag;
+        private final long mRowCount;
+        private final long mTotalBytes;
+        private final long mUnreadBytes;
+        private final String[] mUnreadColumns;
+
+        Report(String tag, long rowCount, long totalBytes, long unreadBytes, String[] unreadColumns) {
+            mTag = tag;
+            mRowCount = rowCount;
+            mTotalBytes = totalBytes;
+            mUnreadBytes = unreadBytes;
+            mUnreadColumns = unreadColumns;
+        }
+
+        public String getTag() {
+            return mTag;
+        }
+
+        /**
+         * Returns the number of rows converted into objects.
+         */
+        public long getRowCount() {
+            return mRowCount;
+        }
+
+        /**
+         * Returns the amount of data read from all columns.
+         */
+        public long getTotalBytes() {
+            return mTotalBytes;
+        }
+
+        /**
+         * Returns the amount of data read from the columns backing the fields
+         * which were never read, i.e. the amount of data which would not be
+         * read with the suggested projection.
+         */
+        public long getUnreadBytes() {
+            return mUnreadBytes;
+        }
+
+        /**
+         * Returns the columns backing the fields which were never read.
+         */
+        public String[] getUnreadColumns() {
+            return mUnreadColumns.clone();
+        }
+
+        @Override
+        public String toString() {
+            return mTag + ": " + mRowCount + " rows, " + mUnreadBytes + " of " + mTotalBytes
+                    + " bytes in unread columns " + Arrays.toString(mUnreadColumns);
+        }
+    }
+}
@@ -35,6 +35,9 @@ class ReflectiveDaoAdapter<T> implements DaoAdapter<T> {
     private final String[] mProjection;
     private final String[] mWritableColumns;
     private final Set<String> mWritableDuplicates;
+    private final int[] mColumnOffsets;
+    private final LayoutCache<int[]> mColumnIndices = new LayoutCache<>();
+    private final LayoutCache<int[]> mSparseColumnIndices = new LayoutCache<>();
 
     ReflectiveDaoAdapter(Class<T> klass, List<FieldAdapter> fieldAdapters, List<EmbeddedFieldInitializer> fieldInitializers) {
         mKlass = klass;
@@ -44,7 +47,10 @@ class ReflectiveDaoAdapter<T> implements DaoAdapter<T> {
         List<String> projectionBuilder = new ArrayList<>();
         List<String> writableColumnsBuilder = new ArrayList<>();
 
-        for (FieldAdapter fieldAdapter : fieldAdapters) {
+        mColumnOffsets = new int[fieldAdapters.size()];
+        for (int i = 0; i < fieldAdapters.size(); i++) {
+            FieldAdapter fieldAdapter = fieldAdapters.get(i);
+            mColumnOffsets[i] = projectionBuilder.size();
             projectionBuilder.addAll(Arrays.asList(fieldAdapter.getColumnNames()));
             writableColumnsBuilder.addAll(Arrays.asList(fieldAdapter.getWritableColumnNames()));
         }
@@ -91,9 +97,34 @@ class ReflectiveDaoAdapter<T> implements DaoAdapter<T> {
 
     @Override
     public T fromCursor(Cursor c, T object) {
+        return fromCursor(c, getColumnIndices(c), 0, object);
+    }
+
+    @Override
+    public int[] getColumnIndices(Cursor c) {
+        int[] columnIndices = mColumnIndices.get(c);
+        if (columnIndices == null) {
+            columnIndices = ColumnIndices.resolve(c, mProjection);
+            mColumnIndices.put(c, columnIndices);
+        }
+        return columnIndices;
+    }
+
+    @Override
+    public int[] getSparseColumnIndices(Cursor c) {
+        int[] columnIndices = mSparseColumnIndices.get(c);
+        if (columnIndices == null) {
+            columnIndices = ColumnIndices.resolveSparse(c, mProjection);
+            mSparseColumnIndices.put(c, columnIndices);
+        }
+        return columnIndices;
+    }
+
+    @Override
+    public T fromCursor(Cursor c, int[] columnIndices, int offset, T object) {
         try {
-            for (FieldAdapter fieldAdapter : mFieldAdapters) {
-                fieldAdapter.setValueFromCursor(c, object);
+            for (int i = 0; i < mFieldAdapters.size(); i++) {
+                mFieldAdapters.get(i).setValueFromCursor(c, columnIndices, offset + mColumnOffsets[i], object);
             }
             return object;
         } catch (IllegalAccessException e) {
@@ -133,4 +164,85 @@ class ReflectiveDaoAdapter<T> implements DaoAdapter<T> {
     public String[] getWritableColumns() {
         return mWritableColumns.clone();
     }
+
+    @Override
+    public int getProjectionIndex(String fieldPath) {
+        int separator = fieldPath.indexOf('.');
+        int i = findFieldAdapter(fieldPath, separator);
+
+        if (separator < 0) {
+            return mColumnOffsets[i];
+        }
+        DaoAdapter<?> embeddedAdapter = ((EmbeddedFieldAdapter) mFieldAdapters.get(i)).mDaoAdapter;
+        return mColumnOffsets[i] + embeddedAdapter.getProjectionIndex(fieldPath.substring(separator + 1));
+    }
+
+    @Override
+    public int[] getProjectionIndices(String fieldPath) {
+        int separator = fieldPath.indexOf('.');
+        if (separator >= 0) {
+            int i = findFieldAdapter(fieldPath, separator);
+            int[] indices = ((EmbeddedFieldAdapter) mFieldAdapters.get(i)).mDaoAdapter.getProjectionIndices(fieldPath.substring(separator + 1));
+            for (int j = 0; j < indices.length; j++) {
+                indices[j] += mColumnOffsets[i];
+            }
+            return indices;
+        }
+
+        for (int i = 0; i < mFieldAdapters.size(); i++) {
+            FieldAdapter fieldAdapter = mFieldAdapters.get(i);
+            if (fieldAdapter.mField.getName().equals(fieldPath)
+                    || fieldAdapter instanceof PackedFlagsFieldAdapter && ((PackedFlagsFieldAdapter) fieldAdapter).containsField(fieldPath)) {
+                int[] indices = new int[fieldAdapter.getColumnNames().length];
+                for (int j = 0; j < indices.length; j++) {
+                    indices[j] = mColumnOffsets[i] + j;
+                }
+                return indices;
+            }
+        }
+
+        throw new IllegalArgumentException("No field " + fieldPath + " in " + mKlass.getName());
+    }
+
+    @Override
+    public TypeAdapter<?> getTypeAdapter(String fieldPath) {
+        int separator = fieldPath.indexOf('.');
+        int i = findFieldAdapter(fieldPath, separator);
+
+        if (separator < 0) {
+            return ((ColumnFieldAdapter) mFieldAdapters.get(i)).mTypeAdapter;
+        }
+        DaoAdapter<?> embeddedAdapter = ((EmbeddedFieldAdapter) mFieldAdapters.get(i)).mDaoAdapter;
+        return embeddedAdapter.getTypeAdapter(fieldPath.substring(separator + 1));
+    }
+
+    @Override
+    public Class<?> getFieldType(String fieldPath) {
+        int separator = fieldPath.indexOf('.');
+        int i = findFieldAdapter(fieldPath, separator);
+
+        if (separator < 0) {
+            return mFieldAdapters.get(i).mField.getType();
+        }
+        DaoAdapter<?> embeddedAdapter = ((EmbeddedFieldAdapter) mFieldAdapters.get(i)).mDaoAdapter;
+        return embeddedAdapter.getFieldType(fieldPath.substring(separator + 1));
+    }
+
+    private int findFieldAdapter(String fieldPath, int separator) {
+        String fieldName = separator < 0 ? fieldPath : fieldPath.substring(0, separator);
+
+        for (int i = 0; i < mFieldAdapters.size(); i++) {
+            FieldAdapter fieldAdapter = mFieldAdapters.get(i);
+            if (!fieldAdapter.mField.getName().equals(fieldName)) {
+                continue;
+            }
+
+            if (separator < 0 && fieldAdapter instanceof ColumnFieldAdapter
+                    || separator >= 0 && fieldAdapter instanceof EmbeddedFieldAdapter) {
+                return i;
+            }
+        }
+
+        throw new IllegalArgumentException("No column field " + fieldPath + " in " + mKlass.getName());
+    }
 }
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm;
+
+import java.util.List;
+
+/**
+ * Result of {@link MicroOrm#remapFromCursor(List, android.database.Cursor, Class, String)}:
+ * the new {@link List} of objects and the positions of changes relative to
+ * the previous {@link List}, which can be used to update the UI
+ * incrementally.
+ *
+ * @param <T> the type of the objects
+ */
+public class RemapResult<T> {
+
+    private final List<T> mList;
+    private final int[] mInsertedPositions;
+    private final int[] mRemovedPositions;
+    private final int[] mChangedPositions;
+    private final int[] mMovedPositions;
+
+    RemapResult(List<T> list, int[] insertedPositions, int[] removedPositions, int[] changedPositions, int[] movedPositions) {
+        mList = list;
+        mInsertedPositions = insertedPositions;
+        mRemovedPositions = removedPositions;
+        mChangedPositions = changedPositions;
+        mMovedPositions = movedPositions;
+    }
+
+    /**
+     * @return the unmodifiable {@link List} of objects created from or reused
+     * for the rows of the new {@link android.database.Cursor}. Pass it as the
+     * previous {@link List} to the next remapping.
+     */
+    public List<T> getList() {
+        return mList;
+    }
+
+    /**
+     * @return the ascending positions in the new {@link List} of objects with
+     * keys not present in the previous {@link List}
+     */
+    public int[] getInsertedPositions() {
+        return mInsertedPositions.clone();
+    }
+
+    /**
+     * @return the ascending positions in the previous {@link List} of objects
+     * with keys not present in the new {@link List}
+     */
+    public int[] getRemovedPositions() {
+        return mRemovedPositions.clone();
+    }
+
+    /**
+     * @return the ascending positions in the new {@link List} of objects
+     * which were present in the previous {@link List}, but were recreated
+     * because the row data changed
+     */
+    public int[] getChangedPositions() {
+        return mChangedPositions.clone();
+    }
+
+    /**
+     * @return the ascending positions in the new {@link List} of objects
+     * which were present in the previous {@link List}, but changed their order
+     * relative to the other such objects. This is the minimal set of moves,
+     * i.e. the remaining objects form the longest subsequence preserving the
+     * previous order.
+     */
+    public int[] getMovedPositions() {
+        return mMovedPositions.clone();
+    }
+
+    /**
+     * @return true if the new {@link List} contains exactly the same objects
+     * as the previous one
+     */
+    public boolean isUnchanged() {
+        return mInsertedPositions.length == 0
+                && mRemovedPositions.length == 0
+                && mChangedPositions.length == 0
+                && mMovedPositions.length == 0;
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Unmodifiable {@link java.util.List} returned from
+ * {@link MicroOrm#remapFromCursor(java.util.List, android.database.Cursor, Class, String)},
+ * which remembers the keys and hashes of the rows the objects were created
+ * from, so it can be passed as previous list to the next remapping.
+ */
+final class RemappedList<T> extends AbstractList<T> implements RandomAccess {
+
+    private final Object[] mItems;
+    final long[] mKeys;
+    final long[] mHashes;
+
+    RemappedList(Object[] items, long[] keys, long[] hashes) {
+        mItems = items;
+        mKeys = keys;
+        mHashes = hashes;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public T get(int location) {
+        if (location < 0 || location >= mItems.length) {
+            throw new IndexOutOfBoundsException("Invalid index " + location + ", size is " + mItems.length);
+        }
+        return (T) mItems[location];
+    }
+
+    @Override
+    public int size() {
+        return mItems.length;
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm;
+
+import android.database.Cursor;
+
+import org.chalup.microorm.guava.Preconditions;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+final class Remapper {
+    private Remapper() {
+    }
+
+    static <T> RemapResult<T> remap(List<T> previous, Cursor c, Class<T> klass, DaoAdapter<T> adapter, String keyField) {
+        int keyProjectionIndex = adapter.getProjectionIndex(keyField);
+
+        long[] previousKeys;
+        long[] previousHashes;
+        if (previous instanceof RemappedList) {
+            previousKeys = ((RemappedList<T>) previous).mKeys;
+            previousHashes = ((RemappedList<T>) previous).mHashes;
+        } else {
+            previousKeys = readKeys(previous, Fields.findField(klass, keyField));
+            previousHashes = null;
+        }
+
+        Map<Long, Integer> previousPositions = new HashMap<>(previousKeys.length * 2);
+        for (int i = previousKeys.length - 1; i >= 0; i--) {
+            previousPositions.put(previousKeys[i], i);
+        }
+        boolean[] retained = new boolean[previousKeys.length];
+
+        int count = c.getCount();
+        Object[] items = new Object[count];
+        long[] keys = new long[count];
+        long[] hashes = ColumnTypes.SUPPORTED ? new long[count] : null;
+
+        int[] inserted = new int[count];
+        int insertedCount = 0;
+        int[] changed = new int[count];
+        int changedCount = 0;
+        int[] retainedPositions = new int[count];
+        int[] retainedPreviousPositions = new int[count];
+        int retainedCount = 0;
+
+        if (c.moveToFirst()) {
+            int[] columnIndices = adapter.getColumnIndices(c);
+            int keyColumnIndex = columnIndices[keyProjectionIndex];
+            RowHasher hasher = hashes != null ? new RowHasher() : null;
+
+            int position = 0;
+            do {
+                long key = c.getLong(keyColumnIndex);
+                keys[position] = key;
+                if (hasher != null) {
+                    hashes[position] = hasher.hash(c, columnIndices);
+                }
+
+                Integer previousPosition = previousPositions.get(key);
+                if (previousPosition != null && !retained[previousPosition]) {
+                    retained[previousPosition] = true;
+                    retainedPositions[retainedCount] = position;
+                    retainedPreviousPositions[retainedCount++] = previousPosition;
+
+                    if (hashes != null && previousHashes != null && previousHashes[previousPosition] == hashes[position]) {
+                        items[position] = previous.get(previousPosition);
+                    } else {
+                        items[position] = adapter.fromCursor(c, columnIndices, 0, adapter.createInstance());
+                        changed[changedCount++] = position;
+                    }
+                } else {
+                    items[position] = adapter.fromCursor(c, columnIndices, 0, adapter.createInstance());
+                    inserted[insertedCount++] = position;
+                }
+                position++;
+            } while (c.moveToNext());
+        }
+
+        int[] removed = new int[previousKeys.length];
+        int removedCount = 0;
+        for (int i = 0; i < retained.length; i++) {
+            if (!retained[i]) {
+                removed[removedCount++] = i;
+            }
+        }
+
+        return new RemapResult<T>(
+                new RemappedList<T>(items, keys, hashes),
+                Arrays.copyOf(inserted, insertedCount),
+                Arrays.copyOf(removed, removedCount),
+                Arrays.copyOf(changed, changedCount),
+                findMoved(retainedPositions, retainedPreviousPositions, retainedCount)
+        );
+    }
+
+    private static long[] readKeys(List<?> objects, Field keyField) {
+        Preconditions.checkArgument(Fields.isIntegral(keyField.getType()), "Field %s is not an integral type", keyField.getName());
+
+        long[] keys = new long[objects.size()];
+        try {
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = ((Number) keyField.get(objects.get(i))).longValue();
+            }
+        } catch (IllegalAccessException e) {
+            throw new AssertionError(e);
+        }
+        return keys;
+    }
+
+    /**
+     * Returns the positions of retained objects, which are not part of the
+     * longest increasing subsequence of their previous positions.
+     */
+    private static int[] findMoved(int[] positions, int[] previousPositions, int count) {
+        // tails[k] is the index of the smallest tail of increasing subsequence of length k + 1
+        int[] tails = new int[count];
+        int[] predecessors = new int[count];
+        int length = 0;
+
+        for (int i = 0; i < count; i++) {
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (previousPositions[tails[mid]] < previousPositions[i]) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            predecessors[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+
+        boolean[] inSubsequence = new boolean[count];
+        for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = predecessors[i]) {
+            inSubsequence[i] = true;
+        }
+
+        int[] moved = new int[count - length];
+        int movedCount = 0;
+        for (int i = 0; i < count; i++) {
+            if (!inSubsequence[i]) {
+                moved[movedCount++] = positions[i];
+            }
+        }
+        return moved;
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm;
+
+import android.database.Cursor;
+
+/**
+ * {@link IndexedTypeAdapter} for mutable types, which can fill the object
+ * already held by the entity field instead of creating the new one. MicroOrm
+ * calls {@link #fromCursor(Cursor, int, Object)} for the fields with types
+ * handled by adapters implementing this interface, which together with
+ * reusing the entity objects, e.g. with {@link MicroOrm#fromCursor(Cursor, Object)},
+ * allows reading the rows without allocating any objects.
+ */
+public interface ReusingTypeAdapter<T> extends IndexedTypeAdapter<T> {
+
+    /**
+     * Reads a column from cursor into the provided object, or into the new
+     * object if it's null.
+     *
+     * @param c           cursor containing the column
+     * @param columnIndex index of the column containing data representing the
+     *                    Java object
+     * @param reuse       the object to be filled with data; may be null
+     * @return the filled object, usually the same as {@code reuse} if it was
+     * not null
+     */
+    public T fromCursor(Cursor c, int columnIndex, T reuse);
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm;
+
+import android.database.Cursor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Read-only access to the columns backing the fields of the entity in the
+ * current {@link Cursor} row, passed to {@link RowFilter}s. The fields are
+ * specified by name; fields of embedded objects are specified by path, e.g.
+ * {@code "address.city"}. The column index of every field is resolved once.
+ */
+public final class RowAccessor {
+
+    private final DaoAdapter<?> mAdapter;
+    private final Map<Class<?>, TypeAdapter<?>> mTypeAdapters;
+    private final Map<String, Integer> mProjectionIndices = new HashMap<>();
+
+    private Cursor mCursor;
+    private int[] mColumnIndices;
+    private int mOffset;
+
+    RowAccessor(DaoAdapter<?> adapter, Map<Class<?>, TypeAdapter<?>> typeAdapters) {
+        mAdapter = adapter;
+        mTypeAdapters = typeAdapters;
+    }
+
+    void bind(Cursor c, int[] columnIndices, int offset) {
+        mCursor = c;
+        mColumnIndices = columnIndices;
+        mOffset = offset;
+    }
+
+    /**
+     * Returns the index of the column backing given field in the current
+     * {@link Cursor}.
+     *
+     * @throws IllegalArgumentException if there is no such field or the field
+     *                                  is not backed by single column
+     */
+    public int getColumnIndex(String fieldPath) {
+        Integer projectionIndex = mProjectionIndices.get(fieldPath);
+        if (projectionIndex == null) {
+            projectionIndex = mAdapter.getProjectionIndex(fieldPath);
+            mProjectionIndices.put(fieldPath, projectionIndex);
+        }
+        return mColumnIndices[mOffset + projectionIndex];
+    }
+
+    public boolean isNull(String fieldPath) {
+        return mCursor.isNull(getColumnIndex(fieldPath));
+    }
+
+    public long getLong(String fieldPath) {
+        return mCursor.getLong(getColumnIndex(fieldPath));
+    }
+
+    public int getInt(String fieldPath) {
+        return mCursor.getInt(getColumnIndex(fieldPath));
+    }
+
+    public double getDouble(String fieldPath) {
+        return mCursor.getDouble(getColumnIndex(fieldPath));
+    }
+
+    public String getString(String fieldPath) {
+        return mCursor.getString(getColumnIndex(fieldPath));
+    }
+
+    public byte[] getBlob(String fieldPath) {
+        return mCursor.getBlob(getColumnIndex(fieldPath));
+    }
+
+    /**
+     * Reads the column backing given field with the {@link TypeAdapter}
+     * registered for specified type.
+     *
+     * @throws IllegalArgumentException if there is no {@link TypeAdapter}
+     *                                  registered for specified type
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V get(String fieldPath, Class<V> klass) {
+        TypeAdapter<V> typeAdapter = (TypeAdapter<V>) mTypeAdapters.get(klass);
+        if (typeAdapter == null) {
+            throw new IllegalArgumentException("No type adapter registered for " + klass.getName());
+        }
+
+        return TypeAdapters.fromCursor(typeAdapter, mCursor, getColumnIndex(fieldPath));
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm;
+
+import android.annotation.TargetApi;
+import android.database.AbstractWindowedCursor;
+import android.database.Cursor;
+import android.os.Build;
+
+/**
+ * Copy of the raw values from selected columns of single {@link Cursor} row.
+ * The values of other columns are treated as nulls. The text values are held
+ * either as Strings or as raw UTF-8 bytes.
+ */
+class RowBuffer {
+
+    final String[] mColumnNames;
+    final int[] mTypes;
+    final long[] mLongs;
+    final double[] mDoubles;
+    final Object[] mObjects;
+
+    int mPosition;
+
+    RowBuffer(String[] columnNames) {
+        mColumnNames = columnNames;
+        mTypes = new int[columnNames.length];
+        mLongs = new long[columnNames.length];
+        mDoubles = new double[columnNames.length];
+        mObjects = new Object[columnNames.length];
+    }
+
+    @TargetApi(Build.VERSION_CODES.HONEYCOMB)
+    void copyFrom(Cursor c, int[] columnIndices) {
+        mPosition = c.getPosition();
+
+        for (int columnIndex : columnIndices) {
+            copyValue(c, columnIndex, columnIndex, false);
+        }
+    }
+
+    /**
+     * Copies the values of given columns into consecutive slots, i.e. the
+     * column {@code columnIndices[i]} is stored in the slot {@code i}. The
+     * text of {@link AbstractWindowedCursor} is copied as raw UTF-8 bytes,
+     * which are decoded only when read from {@link RowBufferCursor}.
+     */
+    @TargetApi(Build.VERSION_CODES.HONEYCOMB)
+    void copySlotsFrom(Cursor c, int[] columnIndices) {
+        mPosition = c.getPosition();
+
+        boolean rawText = c instanceof AbstractWindowedCursor;
+        for (int i = 0; i < columnIndices.length; i++) {
+            copyValue(c, columnIndices[i], i, rawText);
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.HONEYCOMB)
+    private void copyValue(Cursor c, int columnIndex, int slot, boolean rawText) {
+        int type = c.getType(columnIndex);
+        mTypes[slot] = type;
+        mObjects[slot] = null;
+
+        switch (type) {
+            case Cursor.FIELD_TYPE_INTEGER:
+                mLongs[slot] = c.getLong(columnIndex);
+                break;
+            case Cursor.FIELD_TYPE_FLOAT:
+                mDoubles[slot] = c.getDouble(columnIndex);
+                break;
+            case Cursor.FIELD_TYPE_STRING:
+                mObjects[slot] = rawText ? c.getBlob(columnIndex) : c.getString(columnIndex);
+                break;
+            case Cursor.FIELD_TYPE_BLOB:
+                mObjects[slot] = c.getBlob(columnIndex);
+                break;
+            default:
+                break;
+        }
+    }
+}
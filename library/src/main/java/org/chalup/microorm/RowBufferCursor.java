@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm;
+
+import android.database.AbstractCursor;
+import android.database.sqlite.SQLiteException;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Single row {@link android.database.Cursor} reading the values from
+ * {@link RowBuffer}, with the same type conversions as SQLite cursors. Allows
+ * running the regular {@link DaoAdapter}s and {@link TypeAdapter}s on a copy
+ * of the row.
+ */
+class RowBufferCursor extends AbstractCursor {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final String[] mColumnNames;
+    private RowBuffer mRow;
+
+    RowBufferCursor(String[] columnNames) {
+        mColumnNames = columnNames;
+    }
+
+    void setRow(RowBuffer row) {
+        mRow = row;
+    }
+
+    @Override
+    public int getCount() {
+        return 1;
+    }
+
+    @Override
+    public String[] getColumnNames() {
+        return mColumnNames;
+    }
+
+    @Override
+    public int getType(int column) {
+        return mRow.mTypes[column];
+    }
+
+    @Override
+    public boolean isNull(int column) {
+        return mRow.mTypes[column] == FIELD_TYPE_NULL;
+    }
+
+    @Override
+    public String getString(int column) {
+        switch (mRow.mTypes[column]) {
+            case FIELD_TYPE_NULL:
+                return null;
+            case FIELD_TYPE_INTEGER:
+                return Long.toString(mRow.mLongs[column]);
+            case FIELD_TYPE_FLOAT:
+                return Double.toString(mRow.mDoubles[column]);
+            case FIELD_TYPE_STRING:
+                return text(column);
+            default:
+                throw new SQLiteException("Unable to convert BLOB to string");
+        }
+    }
+
+    private String text(int column) {
+        Object text = mRow.mObjects[column];
+        if (text instanceof byte[]) {
+            byte[] bytes = (byte[]) text;
+            String decoded = new String(bytes, 0, textLength(bytes), UTF_8);
+            mRow.mObjects[column] = decoded;
+            return decoded;
+        }
+        return (String) text;
+    }
+
+    private static int textLength(byte[] bytes) {
+        // CursorWindow returns the text with the terminating NUL
+        return bytes.length > 0 && bytes[bytes.length - 1] == 0 ? bytes.length - 1 : bytes.length;
+    }
+
+    @Override
+    public byte[] getBlob(int column) {
+        switch (mRow.mTypes[column]) {
+            case FIELD_TYPE_NULL:
+                return null;
+            case FIELD_TYPE_STRING:
+                Object text = mRow.mObjects[column];
+                if (text instanceof byte[]) {
+                    byte[] bytes = (byte[]) text;
+                    return Arrays.copyOf(bytes, textLength(bytes));
+                }
+                return ((String) text).getBytes(UTF_8);
+            case FIELD_TYPE_BLOB:
+                return (byte[]) mRow.mObjects[column];
+            default:
+                throw new SQLiteException("Unable to convert number to BLOB");
+        }
+    }
+
+    @Override
+    public long getLong(int column) {
+        switch (mRow.mTypes[column]) {
+            case FIELD_TYPE_NULL:
+                return 0;
+            case FIELD_TYPE_INTEGER:
+                return mRow.mLongs[column];
+            case FIELD_TYPE_FLOAT:
+                return (long) mRow.mDoubles[column];
+            case FIELD_TYPE_STRING:
+                try {
+                    return Long.parseLong(text(column));
+                } catch (NumberFormatException e) {
+                    return (long) getDouble(column);
+                }
+            default:
+                throw new SQLiteException("Unable to convert BLOB to long");
+        }
+    }
+
+    @Override
+    public double getDouble(int column) {
+        switch (mRow.mTypes[column]) {
+            case FIELD_TYPE_NULL:
+                return 0;
+            case FIELD_TYPE_INTEGER:
+                return mRow.mLongs[column];
+            case FIELD_TYPE_FLOAT:
+                return mRow.mDoubles[column];
+            case FIELD_TYPE_STRING:
+                try {
+                    return Double.parseDouble(text(column));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            default:
+                throw new SQLiteException("Unable to convert BLOB to double");
+        }
+    }
+
+    @Override
+    public short getShort(int column) {
+        return (short) getLong(column);
+    }
+
+    @Override
+    public int getInt(int column) {
+        return (int) getLong(column);
+    }
+
+    @Override
+    public float getFloat(int column) {
+        return (float) getDouble(column);
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm;
+
+/**
+ * Decides whether an object should be created from the {@link android.database.Cursor}
+ * row. The filter is called before the object is instantiated, so rejecting
+ * the row costs only the column reads done by the filter.
+ */
+public interface RowFilter {
+
+    /**
+     * Returns true if the object should be created from the row.
+     *
+     * @param row the accessor of the current {@link android.database.Cursor}
+     *            row; valid only for the duration of this call
+     * @return true if the object should be created from the row, false if the
+     * row should be skipped
+     */
+    public boolean accept(RowAccessor row);
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm;
+
+import android.annotation.TargetApi;
+import android.database.CharArrayBuffer;
+import android.database.Cursor;
+import android.os.Build;
+
+/**
+ * Computes 64-bit FNV-1a hash of the raw values in given columns of the
+ * current {@link Cursor} row, without creating the objects from them.
+ * Not thread-safe, as it reuses the buffer for text columns.
+ * <p>
+ * The {@link Cursor} API cannot read a part of the blob, so the blob columns
+ * are read in full and allocate the array on every row. For tables with
+ * large blobs, map the blob fields as
+ * {@link org.chalup.microorm.annotations.Lazy}, so they are excluded from
+ * the projection and not hashed at all.
+ */
+class RowHasher {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final CharArrayBuffer mBuffer = new CharArrayBuffer(64);
+
+    @TargetApi(Build.VERSION_CODES.HONEYCOMB)
+    long hash(Cursor c, int[] columnIndices) {
+        long hash = FNV_OFFSET_BASIS;
+
+        for (int columnIndex : columnIndices) {
+            int type = c.getType(columnIndex);
+            hash = mix(hash, type);
+
+            switch (type) {
+                case Cursor.FIELD_TYPE_INTEGER:
+                    hash = mix(hash, c.getLong(columnIndex));
+                    break;
+                case Cursor.FIELD_TYPE_FLOAT:
+                    hash = mix(hash, Double.doubleToLongBits(c.getDouble(columnIndex)));
+                    break;
+                case Cursor.FIELD_TYPE_STRING:
+                    c.copyStringToBuffer(columnIndex, mBuffer);
+                    for (int i = 0; i < mBuffer.sizeCopied; i++) {
+                        hash = (hash ^ mBuffer.data[i]) * FNV_PRIME;
+                    }
+                    hash = mix(hash, mBuffer.sizeCopied);
+                    break;
+                case Cursor.FIELD_TYPE_BLOB:
+                    byte[] blob = c.getBlob(columnIndex);
+                    for (byte b : blob) {
+                        hash = (hash ^ (b & 0xff)) * FNV_PRIME;
+                    }
+                    hash = mix(hash, blob.length);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        return hash;
+    }
+
+    private static long mix(long hash, long value) {
+        for (int i = 0; i < 64; i += 8) {
+            hash = (hash ^ ((value >>> i) & 0xff)) * FNV_PRIME;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm;
+
+import android.database.Cursor;
+
+import org.chalup.microorm.guava.Preconditions;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates the implementations of the interface with getter methods, which
+ * hold the snapshot of the raw column values and decode each column with
+ * registered {@link TypeAdapter} only when its getter is first called. The
+ * getters {@code getFooBar()}, {@code isFooBar()} and {@code fooBar()} read
+ * the column {@code FOO_BAR}. The getters must return reference types, so
+ * the NULL values can be returned as null. You can get instances of this
+ * class with {@link MicroOrm#getRowViewMapping(Class)}.
+ * <p>
+ * On the platform versions without {@link Cursor#getType(int)} the columns
+ * are decoded when the view is created.
+ *
+ * @param <V> the interface implemented by the created views
+ */
+public class RowViewMapping<V> {
+
+    private static final Object NOT_DECODED = new Object();
+
+    private final Class<V> mViewInterface;
+    private final Constructor<?> mProxyConstructor;
+    private final String[] mProjection;
+    private final TypeAdapter<?>[] mTypeAdapters;
+    private final Map<Method, Integer> mSlots = new HashMap<>();
+    private final LayoutCache<int[]> mColumnIndices = new LayoutCache<>();
+
+    private final ThreadLocal<RowBufferCursor> mCursor = new ThreadLocal<RowBufferCursor>() {
+        @Override
+        protected RowBufferCursor initialValue() {
+            return new RowBufferCursor(mProjection);
+        }
+    };
+
+    RowViewMapping(Class<V> viewInterface, Map<Class<?>, TypeAdapter<?>> typeAdapters) {
+        Preconditions.checkArgument(viewInterface.isInterface(), "%s is not an interface", viewInterface.getName());
+        mViewInterface = viewInterface;
+
+        Map<String, Integer> columnSlots = new LinkedHashMap<>();
+        List<TypeAdapter<?>> slotTypeAdapters = new ArrayList<>();
+        for (Method method : viewInterface.getMethods()) {
+            Preconditions.checkArgument(method.getParameterTypes().length == 0, "Method %s is not a getter", method.getName());
+            Preconditions.checkArgument(!method.getReturnType().isPrimitive(), "Method %s returns primitive type", method.getName());
+
+            TypeAdapter<?> typeAdapter = typeAdapters.get(method.getReturnType());
+            Preconditions.checkArgument(typeAdapter != null, "No TypeAdapter for the result of %s", method.getName());
+
+            String column = ColumnFieldAdapter.toSQLNameDefault(propertyName(method));
+            Integer slot = columnSlots.get(column);
+            if (slot == null) {
+                slot = columnSlots.size();
+                columnSlots.put(column, slot);
+                slotTypeAdapters.add(typeAdapter);
+            }
+            mSlots.put(method, slot);
+        }
+
+        mProjection = columnSlots.keySet().toArray(new String[columnSlots.size()]);
+        mTypeAdapters = slotTypeAdapters.toArray(new TypeAdapter<?>[slotTypeAdapters.size()]);
+
+        try {
+            mProxyConstructor = Proxy.getProxyClass(viewInterface.getClassLoader(), viewInterface).getConstructor(InvocationHandler.class);
+        } catch (NoSuchMethodException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    static String propertyName(Method method) {
+        String name = method.getName();
+        if (name.length() > 3 && name.startsWith("get") && Character.isUpperCase(name.charAt(3))) {
+            return name.substring(3);
+        }
+        boolean isBoolean = method.getReturnType() == boolean.class || method.getReturnType() == Boolean.class;
+        if (isBoolean && name.length() > 2 && name.startsWith("is") && Character.isUpperCase(name.charAt(2))) {
+            return name.substring(2);
+        }
+        return name;
+    }
+
+    /**
+     * Returns the columns read by the getters of the view interface.
+     */
+    public String[] getProjection() {
+        return mProjection.clone();
+    }
+
+    private int[] getColumnIndices(Cursor c) {
+        int[] columnIndices = mColumnIndices.get(c);
+        if (columnIndices == null) {
+            columnIndices = ColumnIndices.resolve(c, mProjection);
+            mColumnIndices.put(c, columnIndices);
+        }
+        return columnIndices;
+    }
+
+    /**
+     * Creates the view of the current row in {@link Cursor}. The view holds
+     * the copy of the row, so it stays valid when the {@link Cursor} is moved
+     * or closed.
+     *
+     * @param c an open {@link Cursor} with position set to valid row
+     * @return the view of the current row in {@link Cursor}
+     */
+    public V fromCursor(Cursor c) {
+        return fromCursor(c, getColumnIndices(c));
+    }
+
+    /**
+     * Converts the whole {@link Cursor} into {@link List} of row views.
+     *
+     * @param c a valid {@link Cursor}; the provided {@link Cursor} will not be
+     *          closed
+     * @return the {@link List} of views of all rows in {@link Cursor}
+     */
+    public List<V> listFromCursor(Cursor c) {
+        List<V> result = new ArrayList<>();
+
+        if (c != null && c.moveToFirst()) {
+            int[] columnIndices = getColumnIndices(c);
+            do {
+                result.add(fromCursor(c, columnIndices));
+            } while (c.moveToNext());
+        }
+
+        return result;
+    }
+
+    private V fromCursor(Cursor c, int[] columnIndices) {
+        Object[] values = new Object[mProjection.length];
+        RowBuffer row = null;
+
+        if (ColumnTypes.SUPPORTED) {
+            row = new RowBuffer(mProjection);
+            row.copySlotsFrom(c, columnIndices);
+            Arrays.fill(values, NOT_DECODED);
+        } else {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = TypeAdapters.fromCursor(mTypeAdapters[i], c, columnIndices[i]);
+            }
+        }
+
+        try {
+            return mViewInterface.cast(mProxyConstructor.newInstance(new RowView(row, values)));
+        } catch (InstantiationException e) {
+            throw new AssertionError(e);
+        } catch (IllegalAccessException e) {
+            throw new AssertionError(e);
+        } catch (InvocationTargetException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private class RowView implements InvocationHandler {
+        private final RowBuffer mRow;
+        private final Object[] mValues;
+
+        RowView(RowBuffer row, Object[] values) {
+            mRow = row;
+            mValues = values;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Integer slot = mSlots.get(method);
+            if (slot == null) {
+                return invokeObjectMethod(proxy, method, args);
+            }
+
+            Object value = mValues[slot];
+            if (value == NOT_DECODED) {
+                RowBufferCursor cursor = mCursor.get();
+                cursor.setRow(mRow);
+                value = TypeAdapters.fromCursor(mTypeAdapters[slot], cursor, slot);
+                mValues[slot] = value;
+            }
+            return value;
+        }
+
+        private Object invokeObjectMethod(Object proxy, Method method, Object[] args) {
+            String name = method.getName();
+            if (name.equals("equals")) {
+                return proxy == args[0];
+            }
+            if (name.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            }
+            if (name.equals("toString")) {
+                return mViewInterface.getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+            }
+            throw new UnsupportedOperationException(method.toString());
+        }
+    }
+}
@@ -0,0 +1,359 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteTransactionListener;
+import android.provider.BaseColumns;
+
+import org.chalup.microorm.guava.Preconditions;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bidirectional mapping between Strings and INTEGER codes, backed by the
+ * dictionary table with {@link BaseColumns#_ID} and {@link #VALUE} columns.
+ * The table is read into memory on first use; the values missing in the
+ * dictionary are appended to the table in the transaction, which also creates
+ * the table if needed, and are added to the in-memory mapping only after it is
+ * committed. Reading never writes to the database, so it works with read-only
+ * databases.
+ * <p>
+ * The values appended or read inside the outer transaction might still be
+ * rolled back, so they are not cached, and each row of the bulk insert would
+ * append its values again. Start such transactions with the listener from
+ * {@link #transactionListener(StringDictionary...)}: the dictionary then keeps
+ * the values appended inside the transaction for the thread running it, and
+ * caches them once the transaction is committed. Register the dictionary with
+ * {@link MicroOrm.Builder#registerDictionary(String, StringDictionary)} and
+ * annotate the fields with {@link org.chalup.microorm.annotations.Dictionary}.
+ * <p>
+ * Safe for use from multiple threads. The in-memory mapping is guarded by the
+ * lock which is never held while accessing the database.
+ */
+public class StringDictionary {
+
+    public static final String VALUE = "value";
+
+    private final SQLiteDatabase mDb;
+    private final String mTable;
+
+    private final Object mLock = new Object();
+
+    // guarded by mLock
+    private final LongObjectMap<String> mValues = new LongObjectMap<>();
+    private final Map<String, Long> mCodes = new HashMap<>();
+    private boolean mLoaded;
+
+    // the values appended or read inside the transaction started with the
+    // listener; the transactions are bound to the thread
+    private final ThreadLocal<Pending> mPending = new ThreadLocal<>();
+
+    private static class Pending {
+        final LongObjectMap<String> mValues = new LongObjectMap<>();
+        final Map<String, Long> mCodes = new HashMap<>();
+        int mNestedTransactions;
+
+        void put(long code, String value) {
+            mValues.put(code, value);
+            mCodes.put(value, code);
+        }
+    }
+
+    private final IndexedTypeAdapter<String> mTypeAdapter = new IndexedTypeAdapter<String>() {
+        @Override
+        public String fromCursor(Cursor c, String columnName) {
+            return fromCursor(c, c.getColumnIndexOrThrow(columnName));
+        }
+
+        @Override
+        public String fromCursor(Cursor c, int columnIndex) {
+            return c.isNull(columnIndex) ? null : decode(c.getLong(columnIndex));
+        }
+
+        @Override
+        public void toContentValues(ContentValues values, String columnName, String object) {
+            if (object != null) {
+                values.put(columnName, encode(object));
+            } else {
+                values.putNull(columnName);
+            }
+        }
+    };
+
+    /**
+     * @param db    the database containing the dictionary table
+     * @param table the name of the dictionary table
+     */
+    public StringDictionary(SQLiteDatabase db, String table) {
+        mDb = Preconditions.checkNotNull(db);
+        mTable = Preconditions.checkNotNull(table);
+    }
+
+    /**
+     * Creates the dictionary table if it doesn't exist, e.g. in
+     * {@link android.database.sqlite.SQLiteOpenHelper#onCreate(SQLiteDatabase)}.
+     * The table is also created when the first value is appended.
+     */
+    public static void createTable(SQLiteDatabase db, String table) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + table + " ("
+                + BaseColumns._ID + " INTEGER PRIMARY KEY, "
+                + VALUE + " TEXT NOT NULL UNIQUE)");
+    }
+
+    /**
+     * Returns the listener for the outermost transaction of the bulk insert,
+     * which caches the values appended to given dictionaries once the
+     * transaction is committed:
+     * <pre>
+     * db.beginTransactionWithListener(StringDictionary.transactionListener(dictionary));
+     * </pre>
+     *
+     * @throws IllegalArgumentException if the dictionaries are backed by
+     *                                  different databases
+     */
+    public static SQLiteTransactionListener transactionListener(final StringDictionary... dictionaries) {
+        for (StringDictionary dictionary : dictionaries) {
+            Preconditions.checkArgument(dictionary.mDb == dictionaries[0].mDb, "Dictionary %s is backed by different database", dictionary.mTable);
+        }
+
+        return new SQLiteTransactionListener() {
+            @Override
+            public void onBegin() {
+                for (StringDictionary dictionary : dictionaries) {
+                    dictionary.onTransactionBegin();
+                }
+            }
+
+            @Override
+            public void onCommit() {
+                for (StringDictionary dictionary : dictionaries) {
+                    dictionary.onTransactionEnd(true);
+                }
+            }
+
+            @Override
+            public void onRollback() {
+                for (StringDictionary dictionary : dictionaries) {
+                    dictionary.onTransactionEnd(false);
+                }
+            }
+        };
+    }
+
+    private void onTransactionBegin() {
+        Pending pending = mPending.get();
+        if (pending == null) {
+            mPending.set(new Pending());
+        } else {
+            pending.mNestedTransactions++;
+        }
+    }
+
+    private void onTransactionEnd(boolean committed) {
+        Pending pending = mPending.get();
+        if (pending == null) {
+            return;
+        }
+        if (pending.mNestedTransactions > 0) {
+            pending.mNestedTransactions--;
+            return;
+        }
+
+        mPending.remove();
+        if (committed) {
+            synchronized (mLock) {
+                for (Map.Entry<String, Long> entry : pending.mCodes.entrySet()) {
+                    cache(entry.getValue(), entry.getKey());
+                }
+            }
+        }
+    }
+
+    private void ensureLoaded() {
+        synchronized (mLock) {
+            if (mLoaded) {
+                return;
+            }
+        }
+
+        // the database is never accessed while holding the lock, as the thread
+        // holding the database connection might be waiting for it
+        List<Long> codes = new ArrayList<>();
+        List<String> values = new ArrayList<>();
+        if (tableExists()) {
+            Cursor c = mDb.query(mTable, new String[]{BaseColumns._ID, VALUE}, null, null, null, null, null);
+            try {
+                while (c.moveToNext()) {
+                    codes.add(c.getLong(0));
+                    values.add(c.getString(1));
+                }
+            } finally {
+                c.close();
+            }
+        }
+
+        synchronized (mLock) {
+            for (int i = 0; i < codes.size(); i++) {
+                cache(codes.get(i), values.get(i));
+            }
+            mLoaded = true;
+        }
+    }
+
+    private boolean tableExists() {
+        Cursor c = mDb.rawQuery("SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = ?", new String[]{mTable});
+        try {
+            return c.moveToFirst();
+        } finally {
+            c.close();
+        }
+    }
+
+    private void cache(long code, String value) {
+        mValues.put(code, value);
+        mCodes.put(value, code);
+    }
+
+    /**
+     * Returns the value with given code, or null if there is no such code in
+     * the dictionary.
+     */
+    public String decode(long code) {
+        ensureLoaded();
+
+        String value;
+        synchronized (mLock) {
+            value = mValues.get(code);
+        }
+        Pending pending = mPending.get();
+        if (value == null && pending != null) {
+            value = pending.mValues.get(code);
+        }
+        if (value != null) {
+            return value;
+        }
+
+        // the code might have been appended through another instance
+        Cursor c = mDb.query(mTable, new String[]{VALUE}, BaseColumns._ID + " = ?", new String[]{Long.toString(code)}, null, null, null);
+        try {
+            if (c.moveToFirst()) {
+                value = c.getString(0);
+            }
+        } finally {
+            c.close();
+        }
+
+        if (value != null) {
+            remember(code, value);
+        }
+        return value;
+    }
+
+    /**
+     * Returns the code of given value, or null if the value is not in the
+     * dictionary. Use it for selection arguments, as the values missing in the
+     * dictionary cannot be stored in any row.
+     */
+    public Long lookup(String value) {
+        Preconditions.checkNotNull(value);
+        ensureLoaded();
+
+        Long code;
+        synchronized (mLock) {
+            code = mCodes.get(value);
+        }
+        Pending pending = mPending.get();
+        if (code == null && pending != null) {
+            code = pending.mCodes.get(value);
+        }
+        return code;
+    }
+
+    /**
+     * Returns the code of given value, appending the value to the dictionary
+     * table if it's missing.
+     */
+    public long encode(String value) {
+        Long code = lookup(value);
+        if (code != null) {
+            return code;
+        }
+
+        mDb.beginTransaction();
+        try {
+            createTable(mDb, mTable);
+            code = append(value);
+            mDb.setTransactionSuccessful();
+        } finally {
+            mDb.endTransaction();
+        }
+
+        remember(code, value);
+        return code;
+    }
+
+    /**
+     * Caches the value read from or appended to the dictionary table, unless
+     * it was done inside the outer transaction, which might still be rolled
+     * back. Inside the transaction started with
+     * {@link #transactionListener(StringDictionary...)} the value is kept
+     * until the transaction ends.
+     */
+    private void remember(long code, String value) {
+        if (!mDb.inTransaction()) {
+            synchronized (mLock) {
+                cache(code, value);
+            }
+            return;
+        }
+
+        Pending pending = mPending.get();
+        if (pending != null) {
+            pending.put(code, value);
+        }
+    }
+
+    private long append(String value) {
+        ContentValues values = new ContentValues(1);
+        values.put(VALUE, value);
+        long code = mDb.insertWithOnConflict(mTable, null, values, SQLiteDatabase.CONFLICT_IGNORE);
+        if (code != -1) {
+            return code;
+        }
+
+        // the value was appended through another instance
+        Cursor c = mDb.query(mTable, new String[]{BaseColumns._ID}, VALUE + " = ?", new String[]{value}, null, null, null);
+        try {
+            if (!c.moveToFirst()) {
+                throw new IllegalStateException("Cannot append " + value + " to dictionary " + mTable);
+            }
+            return c.getLong(0);
+        } finally {
+            c.close();
+        }
+    }
+
+    TypeAdapter<String> getTypeAdapter() {
+        return mTypeAdapter;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Maps the rows of append-only table, e.g. event log, into the growing
+ * {@link List} of objects. Each {@link #poll(SQLiteDatabase)} queries and
+ * maps only the rows appended since the previous call, so the cost of the
+ * refresh depends on the number of new rows, not on the size of the table.
+ * You can get instances of this class with
+ * {@link MicroOrm#getTailMapper(Class, String, String)}.
+ * <p>
+ * The rows are identified by integer key column, which must grow with every
+ * appended row, e.g. {@code rowid} or {@code INTEGER PRIMARY KEY AUTOINCREMENT}
+ * column. This class is not thread-safe.
+ *
+ * @param <T> the type of the created objects
+ */
+public class TailMapper<T> {
+
+    private final DaoAdapter<T> mAdapter;
+    private final String mTable;
+    private final String[] mProjection;
+    private final String mSelection;
+    private final String mOrderBy;
+
+    private final List<T> mObjects = new ArrayList<>();
+    private final List<T> mUnmodifiableObjects = Collections.unmodifiableList(mObjects);
+    private long mLastKey;
+
+    TailMapper(DaoAdapter<T> adapter, String table, String keyColumn) {
+        mAdapter = adapter;
+        mTable = table;
+        mProjection = KeyedQueries.withKeyColumn(adapter.getProjection(), keyColumn);
+        mSelection = keyColumn + " > ?";
+        mOrderBy = keyColumn + " ASC";
+    }
+
+    /**
+     * Queries the rows appended to the table since the previous call, maps
+     * them to objects and appends them to the {@link List} returned from
+     * {@link #getList()}.
+     *
+     * @param db the database containing the table
+     * @return the {@link List} of objects created from new rows, in the order
+     * of their keys
+     */
+    public List<T> poll(SQLiteDatabase db) {
+        Cursor c = mObjects.isEmpty()
+                ? db.query(mTable, mProjection, null, null, null, null, mOrderBy)
+                : db.query(mTable, mProjection, mSelection, new String[]{Long.toString(mLastKey)}, null, null, mOrderBy);
+
+        int previousSize = mObjects.size();
+        try {
+            if (c.moveToFirst()) {
+                int[] columnIndices = mAdapter.getColumnIndices(c);
+                int keyColumnIndex = mProjection.length - 1;
+                do {
+                    mObjects.add(mAdapter.fromCursor(c, columnIndices, 0, mAdapter.createInstance()));
+                    mLastKey = c.getLong(keyColumnIndex);
+                } while (c.moveToNext());
+            }
+        } finally {
+            c.close();
+        }
+
+        return new ArrayList<>(mObjects.subList(previousSize, mObjects.size()));
+    }
+
+    /**
+     * @return the unmodifiable {@link List} of all objects mapped so far, in
+     * the order of their keys. The {@link List} grows with each
+     * {@link #poll(SQLiteDatabase)} call.
+     */
+    public List<T> getList() {
+        return mUnmodifiableObjects;
+    }
+
+    /**
+     * @return the value of key column of the most recently mapped row
+     * @throws IllegalStateException if no rows were mapped yet
+     */
+    public long getLastKey() {
+        if (mObjects.isEmpty()) {
+            throw new IllegalStateException("No rows were mapped from " + mTable + " yet");
+        }
+        return mLastKey;
+    }
+
+    /**
+     * Discards all mapped objects, so the next {@link #poll(SQLiteDatabase)}
+     * maps the whole table again.
+     */
+    public void reset() {
+        mObjects.clear();
+    }
+}
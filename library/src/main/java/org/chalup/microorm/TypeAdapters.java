@@ -16,17 +16,39 @@
 
 package org.chalup.microorm;
 
+import android.annotation.TargetApi;
 import android.content.ContentValues;
+import android.database.AbstractWindowedCursor;
+import android.database.CharArrayBuffer;
 import android.database.Cursor;
+import android.os.Build;
+
+import java.nio.ByteBuffer;
 
 final class TypeAdapters {
     private TypeAdapters() {
     }
 
-    public static class StringAdapter implements TypeAdapter<String> {
+    /**
+     * Reads the column with given index, avoiding the column lookup if the
+     * {@code typeAdapter} is {@link IndexedTypeAdapter}.
+     */
+    static <T> T fromCursor(TypeAdapter<T> typeAdapter, Cursor c, int columnIndex) {
+        if (typeAdapter instanceof IndexedTypeAdapter) {
+            return ((IndexedTypeAdapter<T>) typeAdapter).fromCursor(c, columnIndex);
+        }
+        return typeAdapter.fromCursor(c, c.getColumnName(columnIndex));
+    }
+
+    public static class StringAdapter implements IndexedTypeAdapter<String> {
         @Override
         public String fromCursor(Cursor c, String columnName) {
-            return c.getString(c.getColumnIndexOrThrow(columnName));
+            return fromCursor(c, c.getColumnIndexOrThrow(columnName));
+        }
+
+        @Override
+        public String fromCursor(Cursor c, int columnIndex) {
+            return c.getString(columnIndex);
         }
 
         @Override
@@ -35,10 +57,15 @@ final class TypeAdapters {
         }
     }
 
-    public static class ShortAdapter implements TypeAdapter<Short> {
+    public static class ShortAdapter implements IndexedTypeAdapter<Short> {
         @Override
         public Short fromCursor(Cursor c, String columnName) {
-            return c.getShort(c.getColumnIndexOrThrow(columnName));
+            return fromCursor(c, c.getColumnIndexOrThrow(columnName));
+        }
+
+        @Override
+        public Short fromCursor(Cursor c, int columnIndex) {
+            return c.getShort(columnIndex);
         }
 
         @Override
@@ -47,10 +74,15 @@ final class TypeAdapters {
         }
     }
 
-    public static class IntegerAdapter implements TypeAdapter<Integer> {
+    public static class IntegerAdapter implements IndexedTypeAdapter<Integer> {
         @Override
         public Integer fromCursor(Cursor c, String columnName) {
-            return c.getInt(c.getColumnIndexOrThrow(columnName));
+            return fromCursor(c, c.getColumnIndexOrThrow(columnName));
+        }
+
+        @Override
+        public Integer fromCursor(Cursor c, int columnIndex) {
+            return c.getInt(columnIndex);
         }
 
         @Override
@@ -59,10 +91,15 @@ final class TypeAdapters {
         }
     }
 
-    public static class LongAdapter implements TypeAdapter<Long> {
+    public static class LongAdapter implements IndexedTypeAdapter<Long> {
         @Override
         public Long fromCursor(Cursor c, String columnName) {
-            return c.getLong(c.getColumnIndexOrThrow(columnName));
+            return fromCursor(c, c.getColumnIndexOrThrow(columnName));
+        }
+
+        @Override
+        public Long fromCursor(Cursor c, int columnIndex) {
+            return c.getLong(columnIndex);
         }
 
         @Override
@@ -71,10 +108,15 @@ final class TypeAdapters {
         }
     }
 
-    public static class FloatAdapter implements TypeAdapter<Float> {
+    public static class FloatAdapter implements IndexedTypeAdapter<Float> {
         @Override
         public Float fromCursor(Cursor c, String columnName) {
-            return c.getFloat(c.getColumnIndexOrThrow(columnName));
+            return fromCursor(c, c.getColumnIndexOrThrow(columnName));
+        }
+
+        @Override
+        public Float fromCursor(Cursor c, int columnIndex) {
+            return c.getFloat(columnIndex);
         }
 
         @Override
@@ -83,10 +125,15 @@ final class TypeAdapters {
         }
     }
 
-    public static class DoubleAdapter implements TypeAdapter<Double> {
+    public static class DoubleAdapter implements IndexedTypeAdapter<Double> {
         @Override
         public Double fromCursor(Cursor c, String columnName) {
-            return c.getDouble(c.getColumnIndexOrThrow(columnName));
+            return fromCursor(c, c.getColumnIndexOrThrow(columnName));
+        }
+
+        @Override
+        public Double fromCursor(Cursor c, int columnIndex) {
+            return c.getDouble(columnIndex);
         }
 
         @Override
@@ -95,10 +142,15 @@ final class TypeAdapters {
         }
     }
 
-    public static class BooleanAdapter implements TypeAdapter<Boolean> {
+    public static class BooleanAdapter implements IndexedTypeAdapter<Boolean> {
         @Override
         public Boolean fromCursor(Cursor c, String columnName) {
-            return c.getInt(c.getColumnIndexOrThrow(columnName)) == 1;
+            return fromCursor(c, c.getColumnIndexOrThrow(columnName));
+        }
+
+        @Override
+        public Boolean fromCursor(Cursor c, int columnIndex) {
+            return c.getInt(columnIndex) == 1;
         }
 
         @Override
@@ -107,11 +159,16 @@ final class TypeAdapters {
         }
     }
 
-    public static class ByteArrayAdapter implements TypeAdapter<byte[]> {
+    public static class ByteArrayAdapter implements IndexedTypeAdapter<byte[]> {
 
         @Override
         public byte[] fromCursor(Cursor c, String columnName) {
-            return c.getBlob(c.getColumnIndexOrThrow(columnName));
+            return fromCursor(c, c.getColumnIndexOrThrow(columnName));
+        }
+
+        @Override
+        public byte[] fromCursor(Cursor c, int columnIndex) {
+            return c.getBlob(columnIndex);
         }
 
         @Override
@@ -119,4 +176,126 @@ final class TypeAdapters {
             values.put(columnName, object);
         }
     }
+
+    /**
+     * Reads text columns into {@link CharArrayBuffer}, reusing the buffer held
+     * by the field. The NULL values are read as null, so they are written back
+     * as NULL; the field then no longer holds the buffer and the next non-NULL
+     * value is read into a newly allocated one.
+     */
+    public static class CharArrayBufferAdapter implements ReusingTypeAdapter<CharArrayBuffer> {
+
+        private static final int INITIAL_CAPACITY = 64;
+
+        @Override
+        public CharArrayBuffer fromCursor(Cursor c, String columnName) {
+            return fromCursor(c, c.getColumnIndexOrThrow(columnName));
+        }
+
+        @Override
+        public CharArrayBuffer fromCursor(Cursor c, int columnIndex) {
+            return fromCursor(c, columnIndex, null);
+        }
+
+        @Override
+        public CharArrayBuffer fromCursor(Cursor c, int columnIndex, CharArrayBuffer reuse) {
+            if (c.isNull(columnIndex)) {
+                return null;
+            }
+
+            CharArrayBuffer buffer = reuse != null ? reuse : new CharArrayBuffer(INITIAL_CAPACITY);
+            c.copyStringToBuffer(columnIndex, buffer);
+            return buffer;
+        }
+
+        @Override
+        public void toContentValues(ContentValues values, String columnName, CharArrayBuffer object) {
+            if (object != null) {
+                values.put(columnName, new String(object.data, 0, object.sizeCopied));
+            } else {
+                values.putNull(columnName);
+            }
+        }
+    }
+
+    /**
+     * Reads text and blob columns into {@link LazyText}. The text columns of
+     * the {@link AbstractWindowedCursor}s are read as raw UTF-8 bytes, so they
+     * are not decoded until the {@link LazyText} is accessed; other cursors
+     * decode the text eagerly.
+     */
+    public static class LazyTextAdapter implements IndexedTypeAdapter<LazyText> {
+        @Override
+        public LazyText fromCursor(Cursor c, String columnName) {
+            return fromCursor(c, c.getColumnIndexOrThrow(columnName));
+        }
+
+        @TargetApi(Build.VERSION_CODES.HONEYCOMB)
+        @Override
+        public LazyText fromCursor(Cursor c, int columnIndex) {
+            if (c.isNull(columnIndex)) {
+                return null;
+            }
+
+            if (ColumnTypes.SUPPORTED) {
+                int type = c.getType(columnIndex);
+                if (type == Cursor.FIELD_TYPE_BLOB) {
+                    return new LazyText(c.getBlob(columnIndex));
+                }
+                if (type == Cursor.FIELD_TYPE_STRING && c instanceof AbstractWindowedCursor) {
+                    // CursorWindow returns the text with the terminating NUL
+                    byte[] bytes = c.getBlob(columnIndex);
+                    int byteCount = bytes.length;
+                    if (byteCount > 0 && bytes[byteCount - 1] == 0) {
+                        byteCount--;
+                    }
+                    return new LazyText(bytes, byteCount);
+                }
+            }
+
+            return new LazyText(c.getString(columnIndex));
+        }
+
+        @Override
+        public void toContentValues(ContentValues values, String columnName, LazyText object) {
+            if (object != null) {
+                values.put(columnName, object.toString());
+            } else {
+                values.putNull(columnName);
+            }
+        }
+    }
+
+    /**
+     * Reads blob columns into {@link ByteBuffer} wrapping the array returned
+     * by {@link Cursor#getBlob(int)}, so the blob is not copied again when
+     * the buffer is written back. The blob is always read into a new array,
+     * so the adapter does not reuse the buffer held by the field. The NULL
+     * values are read as null.
+     */
+    public static class ByteBufferAdapter implements IndexedTypeAdapter<ByteBuffer> {
+        @Override
+        public ByteBuffer fromCursor(Cursor c, String columnName) {
+            return fromCursor(c, c.getColumnIndexOrThrow(columnName));
+        }
+
+        @Override
+        public ByteBuffer fromCursor(Cursor c, int columnIndex) {
+            byte[] blob = c.getBlob(columnIndex);
+            return blob != null ? ByteBuffer.wrap(blob) : null;
+        }
+
+        @Override
+        public void toContentValues(ContentValues values, String columnName, ByteBuffer object) {
+            if (object == null) {
+                values.putNull(columnName);
+            } else if (object.hasArray() && object.arrayOffset() == 0 && object.position() == 0 && object.limit() == object.array().length) {
+                values.put(columnName, object.array());
+            } else {
+                byte[] bytes = new byte[object.remaining()];
+                object.duplicate().get(bytes);
+                values.put(columnName, bytes);
+            }
+        }
+    }
 }
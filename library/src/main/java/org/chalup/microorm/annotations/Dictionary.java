@@ -0,0 +1,21 @@
+package org.chalup.microorm.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Use this annotation on String fields with repetitive values to store them
+ * as INTEGER codes of the {@link org.chalup.microorm.StringDictionary}
+ * registered with given name in {@link org.chalup.microorm.MicroOrm.Builder}.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface Dictionary {
+
+    /**
+     * The name under which the dictionary was registered.
+     */
+    String value();
+}
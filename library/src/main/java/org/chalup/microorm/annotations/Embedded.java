@@ -10,4 +10,17 @@ import java.lang.annotation.RetentionPolicy;
 @Retention(RetentionPolicy.RUNTIME)
 public @interface Embedded {
 
+    /**
+     * Prefix prepended to the names of all columns of the embedded object,
+     * e.g. {@code "HOME_"}, which allows embedding multiple objects of the
+     * same type.
+     */
+    String prefix() default "";
+
+    /**
+     * If true, the field is set to null when all columns of the embedded
+     * object are NULL, instead of holding an object with default values.
+     * Such fields are not initialized when the parent object is created.
+     */
+    boolean nullable() default false;
 }
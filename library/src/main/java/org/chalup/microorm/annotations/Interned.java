@@ -0,0 +1,17 @@
+package org.chalup.microorm.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Use this annotation on String fields backed by columns with few distinct
+ * values, e.g. status or country code. The repeated values read from the
+ * Cursor are mapped to the same String instance, which reduces the memory
+ * retained by large lists of objects.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface Interned {
+}
@@ -0,0 +1,23 @@
+package org.chalup.microorm.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Use this annotation on {@link org.chalup.microorm.LazyField} fields backed
+ * by large columns which are rarely needed, e.g. blobs or long text. Such
+ * columns are not included in the projection, and the field holds the handle
+ * fetching the column from the row with the same key on first access.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface Lazy {
+
+    /**
+     * The name of the integral field holding the key of the row, which column
+     * is used to query the lazy column.
+     */
+    String keyField() default "id";
+}
@@ -0,0 +1,28 @@
+package org.chalup.microorm.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Use this annotation to store multiple boolean fields, or an EnumSet field,
+ * as the bits of a single INTEGER column. All boolean fields annotated with
+ * the same {@link #value()} share the column, each at its own {@link #bit()};
+ * the EnumSet field uses the bit at the ordinal of each enum constant.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface Packed {
+
+    /**
+     * The name of the INTEGER column holding the bits.
+     */
+    String value();
+
+    /**
+     * The index of the bit holding the boolean field, from 0 to 63. Not used
+     * for EnumSet fields.
+     */
+    int bit() default -1;
+}
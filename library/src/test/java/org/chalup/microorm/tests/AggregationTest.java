@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm.tests;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.chalup.microorm.Aggregation;
+import org.chalup.microorm.MicroOrm;
+import org.chalup.microorm.annotations.Embedded;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.database.MatrixCursor;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class AggregationTest {
+
+  private MicroOrm testSubject;
+  private MatrixCursor cursor;
+
+  public static class Shop {
+    String city;
+  }
+
+  public static class Sale {
+    long amount;
+    double price;
+    Integer quantity;
+
+    @Embedded
+    Shop shop;
+
+    public Sale() {
+      throw new AssertionError("Aggregation should not create objects");
+    }
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    testSubject = new MicroOrm();
+
+    cursor = new MatrixCursor(new String[] { "AMOUNT", "PRICE", "QUANTITY", "CITY" });
+    cursor.addRow(new Object[] { 10, 1.5, 1, "Warsaw" });
+    cursor.addRow(new Object[] { 20, 2.5, null, "Krakow" });
+    cursor.addRow(new Object[] { -5, 0.25, 1, "Warsaw" });
+    cursor.addRow(new Object[] { 7, 4.0, 3, "Gdansk" });
+  }
+
+  @Test
+  public void shouldComputeLongAggregates() throws Exception {
+    Aggregation amount = testSubject.aggregate(Sale.class, "amount");
+
+    assertThat(amount.sumLong(cursor)).isEqualTo(32L);
+    assertThat(amount.minLong(cursor)).isEqualTo(-5L);
+    assertThat(amount.maxLong(cursor)).isEqualTo(20L);
+    assertThat(amount.count(cursor)).isEqualTo(4L);
+  }
+
+  @Test
+  public void shouldComputeDoubleAggregates() throws Exception {
+    Aggregation price = testSubject.aggregate(Sale.class, "price");
+
+    assertThat(price.sumDouble(cursor)).isEqualTo(8.25);
+    assertThat(price.minDouble(cursor)).isEqualTo(0.25);
+    assertThat(price.maxDouble(cursor)).isEqualTo(4.0);
+  }
+
+  @Test
+  public void shouldSkipNullValues() throws Exception {
+    Aggregation quantity = testSubject.aggregate(Sale.class, "quantity");
+
+    assertThat(quantity.count(cursor)).isEqualTo(3L);
+    assertThat(quantity.countDistinct(cursor)).isEqualTo(2);
+    assertThat(quantity.sumLong(cursor)).isEqualTo(5L);
+  }
+
+  @Test
+  public void shouldCountDistinctEmbeddedFieldValues() throws Exception {
+    assertThat(testSubject.aggregate(Sale.class, "shop.city").countDistinct(cursor)).isEqualTo(3);
+  }
+
+  @Test
+  public void shouldGroupByAnotherField() throws Exception {
+    Aggregation.Grouped<String> byCity = testSubject.aggregate(Sale.class, "amount").groupBy("shop.city", String.class);
+
+    Map<String, Long> sums = byCity.sumLong(cursor);
+    assertThat(new ArrayList<>(sums.keySet())).containsExactly("Warsaw", "Krakow", "Gdansk").inOrder();
+    assertThat(sums.get("Warsaw")).isEqualTo(5L);
+    assertThat(sums.get("Krakow")).isEqualTo(20L);
+
+    Map<String, Long> counts = byCity.count(cursor);
+    assertThat(counts.get("Warsaw")).isEqualTo(2L);
+    assertThat(counts.get("Gdansk")).isEqualTo(1L);
+  }
+
+  @Test
+  public void shouldReadOnlyAggregatedColumn() throws Exception {
+    MatrixCursor amounts = new MatrixCursor(new String[] { "AMOUNT" });
+    amounts.addRow(new Object[] { 3 });
+    amounts.addRow(new Object[] { 4 });
+
+    assertThat(testSubject.aggregate(Sale.class, "amount").sumLong(amounts)).isEqualTo(7L);
+  }
+
+  @Test(expected = NoSuchElementException.class)
+  public void shouldFailToComputeMinimumOfNoValues() throws Exception {
+    testSubject.aggregate(Sale.class, "amount").minLong(new MatrixCursor(new String[] { "AMOUNT" }));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldFailForUnknownField() throws Exception {
+    testSubject.aggregate(Sale.class, "discount");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldFailForMismatchedGroupingKeyType() throws Exception {
+    testSubject.aggregate(Sale.class, "amount").groupBy("quantity", String.class);
+  }
+
+  @Test
+  public void shouldGroupByPrimitiveFieldWithBoxedKeyType() throws Exception {
+    Map<Long, Long> counts = testSubject.aggregate(Sale.class, "price").groupBy("amount", Long.class).count(cursor);
+
+    assertThat(counts.get(10L)).isEqualTo(1L);
+  }
+}
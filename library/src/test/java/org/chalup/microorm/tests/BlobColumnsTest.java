@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm.tests;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.*;
+
+import org.chalup.microorm.MicroOrm;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class BlobColumnsTest {
+
+  private static final String TABLE = "attachments";
+  private static final long KEY = 42;
+  private static final byte[] BLOB = new byte[600 * 1024];
+
+  static {
+    for (int i = 0; i < BLOB.length; i++) {
+      BLOB[i] = (byte) (i * 31);
+    }
+  }
+
+  private MicroOrm testSubject;
+  private SQLiteDatabase databaseMock;
+
+  public static class Attachment {
+    long id;
+    ByteBuffer data;
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    testSubject = new MicroOrm();
+
+    databaseMock = mock(SQLiteDatabase.class);
+    when(databaseMock.rawQuery(anyString(), any(String[].class))).thenAnswer(new Answer<Cursor>() {
+      @Override
+      public Cursor answer(InvocationOnMock invocation) throws Throwable {
+        String sql = (String) invocation.getArguments()[0];
+        String[] args = (String[]) invocation.getArguments()[1];
+
+        MatrixCursor cursor = new MatrixCursor(new String[] { "value" });
+        if (Long.parseLong(args[args.length - 1]) != KEY) {
+          return cursor;
+        }
+        if (sql.startsWith("SELECT length(")) {
+          cursor.addRow(new Object[] { BLOB.length });
+        } else {
+          int start = Integer.parseInt(args[0]) - 1;
+          int length = Integer.parseInt(args[1]);
+          cursor.addRow(new Object[] { Arrays.copyOfRange(BLOB, start, Math.min(BLOB.length, start + length)) });
+        }
+        return cursor;
+      }
+    });
+  }
+
+  @Test
+  public void shouldReadBlobIntoBuffer() throws Exception {
+    MatrixCursor cursor = new MatrixCursor(new String[] { "ID", "DATA" });
+    cursor.addRow(new Object[] { 1, new byte[] { 1, 2, 3 } });
+    cursor.moveToFirst();
+
+    Attachment attachment = testSubject.fromCursor(cursor, Attachment.class);
+
+    assertThat(attachment.data.remaining()).isEqualTo(3);
+    assertThat(attachment.data.get(2)).isEqualTo((byte) 3);
+  }
+
+  @Test
+  public void shouldWriteBackReadBlobWithoutCopying() throws Exception {
+    MatrixCursor cursor = new MatrixCursor(new String[] { "ID", "DATA" });
+    cursor.addRow(new Object[] { 1, new byte[] { 1, 2, 3 } });
+    cursor.moveToFirst();
+
+    Attachment attachment = testSubject.fromCursor(cursor, Attachment.class);
+    ContentValues values = testSubject.toContentValues(attachment);
+
+    assertThat(values.getAsByteArray("DATA")).isSameAs(attachment.data.array());
+  }
+
+  @Test
+  public void shouldReadNullBlobAsNullBuffer() throws Exception {
+    MatrixCursor cursor = new MatrixCursor(new String[] { "ID", "DATA" });
+    cursor.addRow(new Object[] { 1, null });
+    cursor.moveToFirst();
+
+    Attachment attachment = new Attachment();
+    attachment.data = ByteBuffer.allocate(4);
+    testSubject.fromCursor(cursor, attachment);
+
+    assertThat(attachment.data).isNull();
+  }
+
+  @Test
+  public void shouldWriteRemainingBytesOfBuffer() throws Exception {
+    Attachment attachment = new Attachment();
+    attachment.data = ByteBuffer.wrap(new byte[] { 1, 2, 3, 4 });
+    attachment.data.position(1);
+
+    ContentValues values = testSubject.toContentValues(attachment);
+
+    assertThat(values.getAsByteArray("DATA")).isEqualTo(new byte[] { 2, 3, 4 });
+    assertThat(attachment.data.position()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldStreamBlobInChunks() throws Exception {
+    InputStream stream = testSubject.openBlobStream(databaseMock, TABLE, "data", "id", KEY);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[8192];
+    int read;
+    while ((read = stream.read(buffer)) != -1) {
+      out.write(buffer, 0, read);
+    }
+    stream.close();
+
+    assertThat(Arrays.equals(out.toByteArray(), BLOB)).isTrue();
+    verify(databaseMock).rawQuery(anyString(), eq(new String[] { "1", "262144", "42" }));
+    verify(databaseMock).rawQuery(anyString(), eq(new String[] { "262145", "262144", "42" }));
+    verify(databaseMock).rawQuery(anyString(), eq(new String[] { "524289", "90112", "42" }));
+  }
+
+  @Test
+  public void shouldSkipWithinStream() throws Exception {
+    InputStream stream = testSubject.openBlobStream(databaseMock, TABLE, "data", "id", KEY);
+
+    assertThat(stream.read()).isEqualTo(BLOB[0] & 0xff);
+    assertThat(stream.skip(300 * 1024)).isEqualTo(300 * 1024L);
+    assertThat(stream.read()).isEqualTo(BLOB[300 * 1024 + 1] & 0xff);
+    assertThat(stream.skip(BLOB.length)).isEqualTo(BLOB.length - 300 * 1024L - 2);
+    assertThat(stream.read()).isEqualTo(-1);
+  }
+
+  @Test
+  public void shouldReturnNullStreamForMissingRow() throws Exception {
+    assertThat(testSubject.openBlobStream(databaseMock, TABLE, "data", "id", KEY + 1)).isNull();
+  }
+}
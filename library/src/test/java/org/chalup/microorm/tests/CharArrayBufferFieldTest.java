@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm.tests;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.chalup.microorm.MicroOrm;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.content.ContentValues;
+import android.database.CharArrayBuffer;
+import android.database.MatrixCursor;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class CharArrayBufferFieldTest {
+
+  private MicroOrm testSubject;
+
+  public static class Document {
+    long id;
+    CharArrayBuffer body;
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    testSubject = new MicroOrm();
+  }
+
+  private static String text(CharArrayBuffer buffer) {
+    return new String(buffer.data, 0, buffer.sizeCopied);
+  }
+
+  @Test
+  public void shouldReadTextIntoBuffer() throws Exception {
+    MatrixCursor cursor = new MatrixCursor(new String[] { "ID", "BODY" });
+    cursor.addRow(new Object[] { 1, "lorem ipsum" });
+    cursor.moveToFirst();
+
+    Document document = testSubject.fromCursor(cursor, Document.class);
+
+    assertThat(text(document.body)).isEqualTo("lorem ipsum");
+  }
+
+  @Test
+  public void shouldRefillBufferOfReusedObject() throws Exception {
+    MatrixCursor cursor = new MatrixCursor(new String[] { "ID", "BODY" });
+    cursor.addRow(new Object[] { 1, "lorem ipsum" });
+    cursor.addRow(new Object[] { 2, "dolor" });
+    cursor.addRow(new Object[] { 3, null });
+
+    Document document = new Document();
+    CharArrayBuffer buffer = new CharArrayBuffer(64);
+    document.body = buffer;
+
+    cursor.moveToFirst();
+    testSubject.fromCursor(cursor, document);
+    assertThat(text(document.body)).isEqualTo("lorem ipsum");
+
+    cursor.moveToNext();
+    testSubject.fromCursor(cursor, document);
+    assertThat(document.body).isSameAs(buffer);
+    assertThat(text(document.body)).isEqualTo("dolor");
+
+    cursor.moveToNext();
+    testSubject.fromCursor(cursor, document);
+    assertThat(document.body).isNull();
+  }
+
+  @Test
+  public void shouldWriteBackNullColumnAsNull() throws Exception {
+    MatrixCursor cursor = new MatrixCursor(new String[] { "ID", "BODY" });
+    cursor.addRow(new Object[] { 1, null });
+    cursor.moveToFirst();
+
+    Document document = testSubject.fromCursor(cursor, Document.class);
+    ContentValues values = testSubject.toContentValues(document);
+
+    assertThat(values.containsKey("BODY")).isTrue();
+    assertThat(values.get("BODY")).isNull();
+  }
+
+  @Test
+  public void shouldWriteBufferContents() throws Exception {
+    Document document = new Document();
+    document.body = new CharArrayBuffer(64);
+    "sit amet".getChars(0, 8, document.body.data, 0);
+    document.body.sizeCopied = 8;
+
+    ContentValues values = testSubject.toContentValues(document);
+
+    assertThat(values.getAsString("BODY")).isEqualTo("sit amet");
+  }
+
+  @Test
+  public void shouldWriteNullForNullBuffer() throws Exception {
+    ContentValues values = testSubject.toContentValues(new Document());
+
+    assertThat(values.containsKey("BODY")).isTrue();
+    assertThat(values.get("BODY")).isNull();
+  }
+}
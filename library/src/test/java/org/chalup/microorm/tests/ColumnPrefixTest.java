@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm.tests;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.chalup.microorm.MicroOrm;
+import org.chalup.microorm.annotations.Embedded;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class ColumnPrefixTest {
+
+  private MicroOrm testSubject;
+
+  @Before
+  public void setUp() throws Exception {
+    testSubject = new MicroOrm();
+  }
+
+  public static class Parent {
+    long id;
+    String name;
+  }
+
+  public static class Child {
+    long id;
+    String name;
+    long parentId;
+  }
+
+  @Test
+  public void shouldGetAliasedProjection() throws Exception {
+    String[] projection = testSubject.getProjection(Parent.class, "p", "p_");
+
+    assertThat(projection).asList().containsExactly("p.ID AS p_ID", "p.NAME AS p_NAME").inOrder();
+  }
+
+  @Test
+  public void shouldGetAliasedProjectionWithoutTable() throws Exception {
+    String[] projection = testSubject.getProjection(Parent.class, null, "p_");
+
+    assertThat(projection).asList().containsExactly("ID AS p_ID", "NAME AS p_NAME").inOrder();
+  }
+
+  @Test
+  public void shouldCreateMultipleObjectsFromSingleRow() throws Exception {
+    Cursor c = TestCursorBuilder
+        .cursor("p_ID", "p_NAME", "c_ID", "c_NAME", "c_PARENT_ID")
+        .addRow(1L, "parent", 2L, "child", 1L);
+
+    Parent parent = testSubject.fromCursor(c, Parent.class, "p_");
+    Child child = testSubject.fromCursor(c, Child.class, "c_");
+
+    assertThat(parent.id).isEqualTo(1L);
+    assertThat(parent.name).isEqualTo("parent");
+    assertThat(child.id).isEqualTo(2L);
+    assertThat(child.name).isEqualTo("child");
+    assertThat(child.parentId).isEqualTo(1L);
+  }
+
+  @Test
+  public void shouldConvertWholeCursorWithPrefix() throws Exception {
+    Cursor c = TestCursorBuilder
+        .cursor("ID", "NAME", "c_ID", "c_NAME", "c_PARENT_ID")
+        .addRow(1L, "parent", 2L, "first child", 1L)
+        .addRow(1L, "parent", 3L, "second child", 1L);
+
+    List<Child> children = testSubject.listFromCursor(c, Child.class, "c_");
+
+    assertThat(children).hasSize(2);
+    assertThat(children.get(1).name).isEqualTo("second child");
+  }
+
+  public static class Address {
+    String city;
+  }
+
+  public static class Contact {
+    String name;
+
+    @Embedded(prefix = "HOME_")
+    Address home;
+
+    @Embedded(prefix = "WORK_")
+    Address work;
+  }
+
+  @Test
+  public void shouldPrefixEmbeddedColumns() throws Exception {
+    assertThat(testSubject.getProjection(Contact.class)).asList().containsExactly("NAME", "HOME_CITY", "WORK_CITY").inOrder();
+  }
+
+  @Test
+  public void shouldUnpackPrefixedEmbeddedObjects() throws Exception {
+    Cursor c = TestCursorBuilder
+        .cursor("NAME", "HOME_CITY", "WORK_CITY")
+        .addRow("John", "Cracow", "Warsaw");
+
+    Contact contact = testSubject.fromCursor(c, Contact.class);
+
+    assertThat(contact.home.city).isEqualTo("Cracow");
+    assertThat(contact.work.city).isEqualTo("Warsaw");
+  }
+
+  @Test
+  public void shouldPackPrefixedEmbeddedObjects() throws Exception {
+    Contact contact = new Contact();
+    contact.home = new Address();
+    contact.home.city = "Cracow";
+
+    ContentValues values = testSubject.toContentValues(contact);
+
+    assertThat(values.getAsString("HOME_CITY")).isEqualTo("Cracow");
+    assertThat(values.containsKey("WORK_CITY")).isTrue();
+    assertThat(values.getAsString("WORK_CITY")).isNull();
+  }
+
+  @Test
+  public void shouldCombineTopLevelAndEmbeddedPrefixes() throws Exception {
+    Cursor c = TestCursorBuilder
+        .cursor("x_NAME", "x_HOME_CITY", "x_WORK_CITY")
+        .addRow("John", "Cracow", "Warsaw");
+
+    Contact contact = testSubject.fromCursor(c, Contact.class, "x_");
+
+    assertThat(contact.name).isEqualTo("John");
+    assertThat(contact.work.city).isEqualTo("Warsaw");
+  }
+}
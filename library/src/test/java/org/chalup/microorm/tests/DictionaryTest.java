@@ -0,0 +1,243 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm.tests;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.*;
+
+import org.chalup.microorm.MicroOrm;
+import org.chalup.microorm.StringDictionary;
+import org.chalup.microorm.annotations.Dictionary;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteTransactionListener;
+
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class DictionaryTest {
+
+  private static final String DICTIONARY_TABLE = "statuses";
+
+  private MicroOrm testSubject;
+  private SQLiteDatabase databaseMock;
+
+  public static class Order {
+    long id;
+    @Dictionary("status")
+    String status;
+  }
+
+  public static class UnregisteredDictionary {
+    @Dictionary("country")
+    String country;
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    databaseMock = mock(SQLiteDatabase.class);
+    when(databaseMock.query(eq(DICTIONARY_TABLE), any(String[].class), anyString(), any(String[].class), anyString(), anyString(), anyString()))
+        .thenAnswer(new Answer<Cursor>() {
+          @Override
+          public Cursor answer(InvocationOnMock invocation) throws Throwable {
+            MatrixCursor cursor = new MatrixCursor(new String[] { "_id", "value" });
+            cursor.addRow(new Object[] { 1, "new" });
+            cursor.addRow(new Object[] { 2, "shipped" });
+            return cursor;
+          }
+        });
+    when(databaseMock.rawQuery(anyString(), any(String[].class))).thenAnswer(new Answer<Cursor>() {
+      @Override
+      public Cursor answer(InvocationOnMock invocation) throws Throwable {
+        MatrixCursor cursor = new MatrixCursor(new String[] { "1" });
+        cursor.addRow(new Object[] { 1 });
+        return cursor;
+      }
+    });
+    when(databaseMock.insertWithOnConflict(eq(DICTIONARY_TABLE), anyString(), any(ContentValues.class), anyInt())).thenReturn(3L);
+
+    testSubject = new MicroOrm.Builder()
+        .registerDictionary("status", new StringDictionary(databaseMock, DICTIONARY_TABLE))
+        .build();
+  }
+
+  @Test
+  public void shouldDecodeCodesFromCursor() throws Exception {
+    MatrixCursor cursor = new MatrixCursor(new String[] { "ID", "STATUS" });
+    cursor.addRow(new Object[] { 1, 2 });
+    cursor.addRow(new Object[] { 2, 1 });
+    cursor.addRow(new Object[] { 3, null });
+
+    List<Order> orders = testSubject.listFromCursor(cursor, Order.class);
+
+    assertThat(orders.get(0).status).isEqualTo("shipped");
+    assertThat(orders.get(1).status).isEqualTo("new");
+    assertThat(orders.get(2).status).isNull();
+    verify(databaseMock, never()).execSQL(anyString());
+    verify(databaseMock, times(1)).query(eq(DICTIONARY_TABLE), any(String[].class), anyString(), any(String[].class), anyString(), anyString(), anyString());
+  }
+
+  @Test
+  public void shouldEncodeKnownValuesWithoutWrites() throws Exception {
+    Order order = new Order();
+    order.status = "shipped";
+
+    ContentValues values = testSubject.toContentValues(order);
+
+    assertThat(values.getAsLong("STATUS")).isEqualTo(2L);
+    verify(databaseMock, never()).beginTransaction();
+  }
+
+  @Test
+  public void shouldAppendMissingValuesInTransaction() throws Exception {
+    Order order = new Order();
+    order.status = "cancelled";
+
+    assertThat(testSubject.toContentValues(order).getAsLong("STATUS")).isEqualTo(3L);
+    assertThat(testSubject.toContentValues(order).getAsLong("STATUS")).isEqualTo(3L);
+
+    verify(databaseMock, times(1)).beginTransaction();
+    verify(databaseMock, times(1)).insertWithOnConflict(eq(DICTIONARY_TABLE), anyString(), any(ContentValues.class), anyInt());
+    verify(databaseMock, times(1)).execSQL(startsWith("CREATE TABLE IF NOT EXISTS statuses"));
+    verify(databaseMock, times(1)).setTransactionSuccessful();
+    verify(databaseMock, times(1)).endTransaction();
+  }
+
+  @Test
+  public void shouldLookUpCodesForSelection() throws Exception {
+    StringDictionary dictionary = new StringDictionary(databaseMock, DICTIONARY_TABLE);
+
+    assertThat(dictionary.lookup("new")).isEqualTo(1L);
+    assertThat(dictionary.lookup("cancelled")).isNull();
+  }
+
+  @Test
+  public void shouldTreatMissingTableAsEmptyDictionary() throws Exception {
+    SQLiteDatabase emptyDatabaseMock = mock(SQLiteDatabase.class);
+    when(emptyDatabaseMock.rawQuery(anyString(), any(String[].class))).thenReturn(new MatrixCursor(new String[] { "1" }));
+
+    StringDictionary dictionary = new StringDictionary(emptyDatabaseMock, DICTIONARY_TABLE);
+
+    assertThat(dictionary.lookup("new")).isNull();
+    verify(emptyDatabaseMock, never()).execSQL(anyString());
+    verify(emptyDatabaseMock, never()).query(anyString(), any(String[].class), anyString(), any(String[].class), anyString(), anyString(), anyString());
+  }
+
+  @Test
+  public void shouldNotCacheValuesDecodedInsideTransaction() throws Exception {
+    StringDictionary dictionary = new StringDictionary(databaseMock, DICTIONARY_TABLE);
+
+    when(databaseMock.inTransaction()).thenReturn(true);
+    assertThat(dictionary.decode(5)).isNotNull();
+    dictionary.decode(5);
+
+    when(databaseMock.inTransaction()).thenReturn(false);
+    dictionary.decode(5);
+    dictionary.decode(5);
+
+    verify(databaseMock, times(3)).query(eq(DICTIONARY_TABLE), any(String[].class), eq("_id = ?"), any(String[].class), anyString(), anyString(), anyString());
+  }
+
+  @Test
+  public void shouldAppendValueForEveryRowInsideTransactionWithoutListener() throws Exception {
+    StringDictionary dictionary = new StringDictionary(databaseMock, DICTIONARY_TABLE);
+
+    when(databaseMock.inTransaction()).thenReturn(true);
+    dictionary.encode("cancelled");
+    dictionary.encode("cancelled");
+
+    verify(databaseMock, times(2)).insertWithOnConflict(eq(DICTIONARY_TABLE), anyString(), any(ContentValues.class), anyInt());
+  }
+
+  @Test
+  public void shouldCacheValuesAppendedInsideTransactionAfterCommit() throws Exception {
+    StringDictionary dictionary = new StringDictionary(databaseMock, DICTIONARY_TABLE);
+    SQLiteTransactionListener listener = StringDictionary.transactionListener(dictionary);
+
+    listener.onBegin();
+    when(databaseMock.inTransaction()).thenReturn(true);
+    for (int i = 0; i < 10; i++) {
+      assertThat(dictionary.encode("cancelled")).isEqualTo(3L);
+    }
+    assertThat(dictionary.decode(3)).isEqualTo("cancelled");
+    listener.onCommit();
+    when(databaseMock.inTransaction()).thenReturn(false);
+
+    assertThat(dictionary.encode("cancelled")).isEqualTo(3L);
+    verify(databaseMock, times(1)).beginTransaction();
+    verify(databaseMock, times(1)).insertWithOnConflict(eq(DICTIONARY_TABLE), anyString(), any(ContentValues.class), anyInt());
+    verify(databaseMock, times(1)).execSQL(anyString());
+  }
+
+  @Test
+  public void shouldDiscardValuesAppendedInsideRolledBackTransaction() throws Exception {
+    StringDictionary dictionary = new StringDictionary(databaseMock, DICTIONARY_TABLE);
+    SQLiteTransactionListener listener = StringDictionary.transactionListener(dictionary);
+
+    listener.onBegin();
+    when(databaseMock.inTransaction()).thenReturn(true);
+    dictionary.encode("cancelled");
+    dictionary.encode("cancelled");
+    listener.onRollback();
+    when(databaseMock.inTransaction()).thenReturn(false);
+
+    assertThat(dictionary.lookup("cancelled")).isNull();
+    dictionary.encode("cancelled");
+    verify(databaseMock, times(2)).insertWithOnConflict(eq(DICTIONARY_TABLE), anyString(), any(ContentValues.class), anyInt());
+  }
+
+  @Test
+  public void shouldKeepValuesUntilOutermostTransactionEnds() throws Exception {
+    StringDictionary dictionary = new StringDictionary(databaseMock, DICTIONARY_TABLE);
+    SQLiteTransactionListener listener = StringDictionary.transactionListener(dictionary);
+
+    listener.onBegin();
+    listener.onBegin();
+    when(databaseMock.inTransaction()).thenReturn(true);
+    dictionary.encode("cancelled");
+    listener.onCommit();
+    dictionary.encode("cancelled");
+    listener.onRollback();
+    when(databaseMock.inTransaction()).thenReturn(false);
+
+    assertThat(dictionary.lookup("cancelled")).isNull();
+    verify(databaseMock, times(1)).insertWithOnConflict(eq(DICTIONARY_TABLE), anyString(), any(ContentValues.class), anyInt());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectListenerForDictionariesInDifferentDatabases() throws Exception {
+    StringDictionary.transactionListener(
+        new StringDictionary(databaseMock, DICTIONARY_TABLE),
+        new StringDictionary(mock(SQLiteDatabase.class), DICTIONARY_TABLE));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectUnregisteredDictionary() throws Exception {
+    testSubject.getProjection(UnregisteredDictionary.class);
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm.tests;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.chalup.microorm.MicroOrm;
+import org.chalup.microorm.annotations.Embedded;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.content.ContentValues;
+import android.database.MatrixCursor;
+
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class EmbeddedReuseTest {
+
+  private static int createdLocations;
+
+  private MicroOrm testSubject;
+
+  public static class Location {
+    Double latitude;
+    Double longitude;
+
+    public Location() {
+      createdLocations++;
+    }
+  }
+
+  public static class Address {
+    String street;
+
+    @Embedded
+    Location location;
+  }
+
+  public static class Place {
+    long id;
+
+    @Embedded
+    Address address;
+
+    @Embedded(prefix = "PIN_", nullable = true)
+    Location pin;
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    testSubject = new MicroOrm();
+    createdLocations = 0;
+  }
+
+  private static MatrixCursor places() {
+    return new MatrixCursor(new String[] { "ID", "STREET", "LATITUDE", "LONGITUDE", "PIN_LATITUDE", "PIN_LONGITUDE" });
+  }
+
+  @Test
+  public void shouldCreateEmbeddedObjectsOncePerRow() throws Exception {
+    MatrixCursor cursor = places();
+    cursor.addRow(new Object[] { 1, "Main St", 52.2, 21.0, 52.3, 21.1 });
+    cursor.addRow(new Object[] { 2, "High St", 50.0, 19.9, 50.1, 20.0 });
+
+    List<Place> places = testSubject.listFromCursor(cursor, Place.class);
+
+    assertThat(places.get(1).address.location.latitude).isEqualTo(50.0);
+    assertThat(places.get(1).pin.longitude).isEqualTo(20.0);
+    assertThat(createdLocations).isEqualTo(4);
+  }
+
+  @Test
+  public void shouldRefillEmbeddedObjectsInPlace() throws Exception {
+    MatrixCursor cursor = places();
+    cursor.addRow(new Object[] { 1, "Main St", 52.2, 21.0, 52.3, 21.1 });
+    cursor.addRow(new Object[] { 2, "High St", 50.0, 19.9, 50.1, 20.0 });
+
+    cursor.moveToFirst();
+    Place place = testSubject.fromCursor(cursor, Place.class);
+    Address address = place.address;
+    Location location = place.address.location;
+    Location pin = place.pin;
+
+    cursor.moveToNext();
+    testSubject.fromCursor(cursor, place);
+
+    assertThat(place.address).isSameAs(address);
+    assertThat(place.address.location).isSameAs(location);
+    assertThat(place.pin).isSameAs(pin);
+    assertThat(place.address.street).isEqualTo("High St");
+    assertThat(place.address.location.latitude).isEqualTo(50.0);
+    assertThat(place.pin.latitude).isEqualTo(50.1);
+  }
+
+  @Test
+  public void shouldLeaveNullableEmbeddedFieldNullWhenAllColumnsAreNull() throws Exception {
+    MatrixCursor cursor = places();
+    cursor.addRow(new Object[] { 1, "Main St", null, null, null, null });
+    cursor.moveToFirst();
+
+    Place place = testSubject.fromCursor(cursor, Place.class);
+
+    assertThat(place.pin).isNull();
+    assertThat(place.address.location).isNotNull();
+    assertThat(place.address.location.latitude).isNull();
+    assertThat(createdLocations).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldCreateNullableEmbeddedObjectWhenAnyColumnIsNotNull() throws Exception {
+    MatrixCursor cursor = places();
+    cursor.addRow(new Object[] { 1, "Main St", null, null, null, 21.1 });
+    cursor.moveToFirst();
+
+    Place place = testSubject.fromCursor(cursor, Place.class);
+
+    assertThat(place.pin).isNotNull();
+    assertThat(place.pin.latitude).isNull();
+    assertThat(place.pin.longitude).isEqualTo(21.1);
+  }
+
+  @Test
+  public void shouldNullReusedEmbeddedObjectWhenAllColumnsBecomeNull() throws Exception {
+    MatrixCursor cursor = places();
+    cursor.addRow(new Object[] { 1, "Main St", 52.2, 21.0, 52.3, 21.1 });
+    cursor.addRow(new Object[] { 2, "High St", 50.0, 19.9, null, null });
+
+    cursor.moveToFirst();
+    Place place = testSubject.fromCursor(cursor, Place.class);
+    cursor.moveToNext();
+    testSubject.fromCursor(cursor, place);
+
+    assertThat(place.pin).isNull();
+  }
+
+  @Test
+  public void shouldWriteNullsForNullEmbeddedObject() throws Exception {
+    Place place = new Place();
+    place.address = new Address();
+
+    ContentValues values = testSubject.toContentValues(place);
+
+    assertThat(values.containsKey("PIN_LATITUDE")).isTrue();
+    assertThat(values.get("PIN_LATITUDE")).isNull();
+  }
+}
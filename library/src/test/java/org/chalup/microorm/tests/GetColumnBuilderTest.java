@@ -19,6 +19,7 @@ package org.chalup.microorm.tests;
 import static com.google.common.truth.Truth.assertThat;
 import static org.mockito.Mockito.*;
 
+import org.chalup.microorm.ColumnFunction;
 import org.chalup.microorm.MicroOrm;
 import org.chalup.microorm.tests.CustomTypeAdapterTest.CustomType;
 import org.chalup.microorm.tests.CustomTypeAdapterTest.CustomTypeAdapter;
@@ -29,6 +30,7 @@ import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 
 import android.database.Cursor;
+import android.database.MatrixCursor;
 
 import java.math.BigDecimal;
 
@@ -65,6 +67,54 @@ public class GetColumnBuilderTest {
     testSubject.getColumn(TEST_COLUMN).as(BigDecimal.class);
   }
 
+  @Test
+  public void shouldResolveColumnIndexOncePerCursorLayout() throws Exception {
+    MatrixCursor cursor = spy(new MatrixCursor(new String[] { "_id", TEST_COLUMN }));
+    cursor.addRow(new Object[] { 1, "first" });
+    cursor.addRow(new Object[] { 2, "second" });
+
+    ColumnFunction<String> function = testSubject.getColumn(TEST_COLUMN).as(String.class);
+
+    cursor.moveToFirst();
+    assertThat(function.apply(cursor)).isEqualTo("first");
+    cursor.moveToNext();
+    assertThat(function.apply(cursor)).isEqualTo("second");
+
+    verify(cursor, times(1)).getColumnIndexOrThrow(TEST_COLUMN);
+  }
+
+  @Test
+  public void shouldReadPrimitiveValues() throws Exception {
+    MatrixCursor cursor = new MatrixCursor(new String[] { TEST_COLUMN });
+    cursor.addRow(new Object[] { TEST_VALUE });
+    cursor.moveToFirst();
+
+    assertThat(testSubject.getColumn(TEST_COLUMN).asLong().applyAsLong(cursor)).isEqualTo(TEST_VALUE);
+    assertThat(testSubject.getColumn(TEST_COLUMN).asInt().applyAsInt(cursor)).isEqualTo((int) TEST_VALUE);
+    assertThat(testSubject.getColumn(TEST_COLUMN).asDouble().applyAsDouble(cursor)).isEqualTo((double) TEST_VALUE);
+  }
+
+  @Test
+  public void shouldDrainWholeColumn() throws Exception {
+    MatrixCursor cursor = new MatrixCursor(new String[] { "_id", TEST_COLUMN });
+    cursor.addRow(new Object[] { 3, "c" });
+    cursor.addRow(new Object[] { 1, null });
+    cursor.addRow(new Object[] { 2, "b" });
+
+    assertThat(testSubject.getColumn("_id").asLong().toArray(cursor)).isEqualTo(new long[] { 3, 1, 2 });
+    assertThat(testSubject.getColumn("_id").asInt().toArray(cursor)).isEqualTo(new int[] { 3, 1, 2 });
+    assertThat(testSubject.getColumn(TEST_COLUMN).as(String.class).toArray(cursor)).isEqualTo(new String[] { "c", null, "b" });
+    assertThat(testSubject.getColumn("_id").as(long.class).toList(cursor)).containsExactly(3L, 1L, 2L).inOrder();
+  }
+
+  @Test
+  public void shouldDrainEmptyCursor() throws Exception {
+    MatrixCursor cursor = new MatrixCursor(new String[] { TEST_COLUMN });
+
+    assertThat(testSubject.getColumn(TEST_COLUMN).asDouble().toArray(cursor)).isEmpty();
+    assertThat(testSubject.getColumn(TEST_COLUMN).as(Long.class).toArray(cursor)).isEmpty();
+  }
+
   @Test(expected = NullPointerException.class)
   public void shouldFailIfColumnIsNull() throws Exception {
     testSubject.getColumn(null);
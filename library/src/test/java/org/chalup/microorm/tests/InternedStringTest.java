@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm.tests;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.chalup.microorm.MicroOrm;
+import org.chalup.microorm.annotations.Interned;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.content.ContentValues;
+import android.database.MatrixCursor;
+
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class InternedStringTest {
+
+  private MicroOrm testSubject;
+
+  public static class Order {
+    String comment;
+
+    @Interned
+    String status;
+  }
+
+  public static class InvalidOrder {
+    @Interned
+    int status;
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    testSubject = new MicroOrm();
+  }
+
+  @Test
+  public void shouldMapRepeatedValuesToSameInstance() throws Exception {
+    MatrixCursor cursor = new MatrixCursor(new String[] { "COMMENT", "STATUS" });
+    for (int i = 0; i < 100; i++) {
+      cursor.addRow(new Object[] { new String("comment"), new String(i % 2 == 0 ? "SHIPPED" : "PENDING") });
+    }
+
+    List<Order> orders = testSubject.listFromCursor(cursor, Order.class);
+
+    assertThat(orders.get(0).status).isEqualTo("SHIPPED");
+    assertThat(orders.get(1).status).isEqualTo("PENDING");
+    for (int i = 2; i < orders.size(); i++) {
+      assertThat(orders.get(i).status).isSameAs(orders.get(i % 2).status);
+    }
+    assertThat(orders.get(2).comment).isNotSameAs(orders.get(0).comment);
+  }
+
+  @Test
+  public void shouldDistinguishNullAndEmptyValues() throws Exception {
+    MatrixCursor cursor = new MatrixCursor(new String[] { "COMMENT", "STATUS" });
+    cursor.addRow(new Object[] { null, null });
+    cursor.addRow(new Object[] { null, "" });
+
+    List<Order> orders = testSubject.listFromCursor(cursor, Order.class);
+
+    assertThat(orders.get(0).status).isNull();
+    assertThat(orders.get(1).status).isEqualTo("");
+  }
+
+  @Test
+  public void shouldReadLongValues() throws Exception {
+    StringBuilder longValue = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      longValue.append(i % 10);
+    }
+
+    MatrixCursor cursor = new MatrixCursor(new String[] { "COMMENT", "STATUS" });
+    cursor.addRow(new Object[] { null, longValue.toString() });
+    cursor.addRow(new Object[] { null, "short" });
+
+    List<Order> orders = testSubject.listFromCursor(cursor, Order.class);
+
+    assertThat(orders.get(0).status).isEqualTo(longValue.toString());
+    assertThat(orders.get(1).status).isEqualTo("short");
+  }
+
+  @Test
+  public void shouldWriteInternedFields() throws Exception {
+    Order order = new Order();
+    order.status = "PENDING";
+
+    ContentValues values = testSubject.toContentValues(order);
+
+    assertThat(values.getAsString("STATUS")).isEqualTo("PENDING");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldFailForNonStringField() throws Exception {
+    testSubject.getProjection(InvalidOrder.class);
+  }
+}
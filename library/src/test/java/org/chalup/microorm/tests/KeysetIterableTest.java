@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm.tests;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.*;
+
+import org.chalup.microorm.MicroOrm;
+import org.chalup.microorm.RowAccessor;
+import org.chalup.microorm.RowFilter;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class KeysetIterableTest {
+
+  private static final String TABLE = "items";
+  private static final int ROWS = 25;
+  private static final int PAGE_SIZE = 10;
+
+  private static final Executor DIRECT_EXECUTOR = new Executor() {
+    @Override
+    public void execute(Runnable command) {
+      command.run();
+    }
+  };
+
+  private MicroOrm testSubject;
+  private SQLiteDatabase databaseMock;
+
+  public static class Item {
+    long id;
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    testSubject = new MicroOrm();
+
+    databaseMock = mock(SQLiteDatabase.class);
+    when(databaseMock.query(eq(TABLE), any(String[].class), anyString(), any(String[].class), anyString(), anyString(), anyString(), anyString()))
+        .thenAnswer(new Answer<Cursor>() {
+          @Override
+          public Cursor answer(InvocationOnMock invocation) throws Throwable {
+            String[] projection = (String[]) invocation.getArguments()[1];
+            String[] selectionArgs = (String[]) invocation.getArguments()[3];
+            int limit = Integer.parseInt((String) invocation.getArguments()[7]);
+
+            long lastKey = selectionArgs != null ? Long.parseLong(selectionArgs[0]) : 0;
+            MatrixCursor cursor = new MatrixCursor(projection);
+            for (long key = lastKey + 1; key <= ROWS && cursor.getCount() < limit; key++) {
+              cursor.addRow(new Object[] { key, key });
+            }
+            return cursor;
+          }
+        });
+  }
+
+  private static List<Item> drain(Iterable<Item> iterable) {
+    List<Item> result = new ArrayList<>();
+    for (Item item : iterable) {
+      result.add(item);
+    }
+    return result;
+  }
+
+  @Test
+  public void shouldIterateOverAllRowsInPages() throws Exception {
+    List<Item> items = drain(testSubject.iterate(databaseMock, TABLE, "ID", Item.class, PAGE_SIZE, DIRECT_EXECUTOR));
+
+    assertThat(items).hasSize(ROWS);
+    for (int i = 0; i < ROWS; i++) {
+      assertThat(items.get(i).id).isEqualTo(i + 1L);
+    }
+
+    verify(databaseMock).query(eq(TABLE), any(String[].class), isNull(String.class), isNull(String[].class), anyString(), anyString(), eq("ID ASC"), eq("10"));
+    verify(databaseMock).query(eq(TABLE), any(String[].class), eq("ID > ?"), eq(new String[] { "10" }), anyString(), anyString(), eq("ID ASC"), eq("10"));
+    verify(databaseMock).query(eq(TABLE), any(String[].class), eq("ID > ?"), eq(new String[] { "20" }), anyString(), anyString(), eq("ID ASC"), eq("10"));
+  }
+
+  @Test
+  public void shouldQueryPagesOnIteratingThreadByDefault() throws Exception {
+    List<Item> items = drain(testSubject.iterate(databaseMock, TABLE, "ID", Item.class, PAGE_SIZE));
+
+    assertThat(items).hasSize(ROWS);
+    assertThat(items.get(ROWS - 1).id).isEqualTo((long) ROWS);
+  }
+
+  @Test
+  public void shouldNotPrefetchInsideTransaction() throws Exception {
+    when(databaseMock.inTransaction()).thenReturn(true);
+    Executor failingExecutor = new Executor() {
+      @Override
+      public void execute(Runnable command) {
+        throw new AssertionError("Page prefetched inside transaction");
+      }
+    };
+
+    List<Item> items = drain(testSubject.iterate(databaseMock, TABLE, "ID", Item.class, PAGE_SIZE, failingExecutor));
+
+    assertThat(items).hasSize(ROWS);
+  }
+
+  @Test
+  public void shouldStopAfterFullLastPage() throws Exception {
+    Iterator<Item> iterator = testSubject.iterate(databaseMock, TABLE, "ID", Item.class, 5, DIRECT_EXECUTOR).iterator();
+
+    int count = 0;
+    while (iterator.hasNext()) {
+      iterator.next();
+      count++;
+    }
+
+    assertThat(count).isEqualTo(ROWS);
+    assertThat(iterator.hasNext()).isFalse();
+  }
+
+  @Test
+  public void shouldSkipRejectedRowsAcrossPages() throws Exception {
+    RowFilter filter = new RowFilter() {
+      @Override
+      public boolean accept(RowAccessor row) {
+        long id = row.getLong("id");
+        return id < 3 || id > 22;
+      }
+    };
+
+    List<Item> items = drain(testSubject.iterate(databaseMock, TABLE, "ID", Item.class, PAGE_SIZE, DIRECT_EXECUTOR, filter));
+
+    assertThat(items).hasSize(5);
+    assertThat(items.get(1).id).isEqualTo(2L);
+    assertThat(items.get(2).id).isEqualTo(23L);
+  }
+
+  @Test
+  public void shouldFilterWithoutExecutor() throws Exception {
+    RowFilter filter = new RowFilter() {
+      @Override
+      public boolean accept(RowAccessor row) {
+        return row.getLong("id") % 5 == 0;
+      }
+    };
+
+    List<Item> items = drain(testSubject.iterate(databaseMock, TABLE, "ID", Item.class, PAGE_SIZE, null, filter));
+
+    assertThat(items).hasSize(5);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void shouldFailForNonIntegerKeys() throws Exception {
+    SQLiteDatabase textKeysDatabaseMock = mock(SQLiteDatabase.class);
+    MatrixCursor cursor = new MatrixCursor(new String[] { "ID", "ID" });
+    cursor.addRow(new Object[] { 1, "a" });
+    when(textKeysDatabaseMock.query(eq(TABLE), any(String[].class), anyString(), any(String[].class), anyString(), anyString(), anyString(), anyString()))
+        .thenReturn(cursor);
+
+    drain(testSubject.iterate(textKeysDatabaseMock, TABLE, "ID", Item.class, PAGE_SIZE));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldFailForNonPositivePageSize() throws Exception {
+    testSubject.iterate(databaseMock, TABLE, "ID", Item.class, 0);
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm.tests;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.*;
+
+import org.chalup.microorm.LazyField;
+import org.chalup.microorm.MicroOrm;
+import org.chalup.microorm.annotations.Lazy;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class LazyFieldTest {
+
+  private static final String TABLE = "notes";
+
+  private MicroOrm testSubject;
+  private SQLiteDatabase databaseMock;
+
+  public static class Note {
+    @Lazy
+    LazyField<String> body;
+    long id;
+    String title;
+  }
+
+  public static class InvalidLazyField {
+    long id;
+    @Lazy
+    String body;
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    testSubject = new MicroOrm();
+
+    databaseMock = mock(SQLiteDatabase.class);
+    when(databaseMock.query(eq(TABLE), any(String[].class), anyString(), any(String[].class), anyString(), anyString(), anyString()))
+        .thenAnswer(new Answer<Cursor>() {
+          @Override
+          public Cursor answer(InvocationOnMock invocation) throws Throwable {
+            String[] projection = (String[]) invocation.getArguments()[1];
+            String[] selectionArgs = (String[]) invocation.getArguments()[3];
+
+            MatrixCursor cursor = new MatrixCursor(projection);
+            for (String arg : selectionArgs) {
+              long key = Long.parseLong(arg);
+              if (key <= 3) {
+                cursor.addRow(projection.length == 1
+                    ? new Object[] { "body " + key }
+                    : new Object[] { "body " + key, key });
+              }
+            }
+            return cursor;
+          }
+        });
+  }
+
+  private static MatrixCursor notesCursor() {
+    MatrixCursor cursor = new MatrixCursor(new String[] { "ID", "TITLE" });
+    cursor.addRow(new Object[] { 1, "first" });
+    cursor.addRow(new Object[] { 2, "second" });
+    cursor.addRow(new Object[] { 4, "deleted" });
+    return cursor;
+  }
+
+  @Test
+  public void shouldExcludeLazyFieldFromProjection() throws Exception {
+    assertThat(Arrays.asList(testSubject.getProjection(Note.class))).containsExactly("ID", "TITLE");
+  }
+
+  @Test
+  public void shouldFetchLazyFieldOnFirstAccess() throws Exception {
+    MatrixCursor cursor = notesCursor();
+    cursor.moveToFirst();
+
+    Note note = testSubject.fromCursor(cursor, Note.class);
+
+    assertThat(note.body.isLoaded()).isFalse();
+    assertThat(note.body.getKey()).isEqualTo(1L);
+    assertThat(note.body.get(databaseMock, TABLE)).isEqualTo("body 1");
+    assertThat(note.body.get(databaseMock, TABLE)).isEqualTo("body 1");
+    verify(databaseMock, times(1)).query(eq(TABLE), eq(new String[] { "BODY" }), eq("ID = ?"), eq(new String[] { "1" }), anyString(), anyString(), anyString());
+  }
+
+  @Test
+  public void shouldLoadLazyFieldForWholeListInSingleQuery() throws Exception {
+    List<Note> notes = testSubject.listFromCursor(notesCursor(), Note.class);
+
+    testSubject.loadLazy(databaseMock, TABLE, notes, "body");
+
+    assertThat(notes.get(0).body.get()).isEqualTo("body 1");
+    assertThat(notes.get(1).body.get()).isEqualTo("body 2");
+    assertThat(notes.get(2).body.isLoaded()).isTrue();
+    assertThat(notes.get(2).body.get()).isNull();
+    verify(databaseMock, times(1)).query(eq(TABLE), eq(new String[] { "BODY", "ID" }), eq("ID IN (?,?,?)"), eq(new String[] { "1", "2", "4" }), anyString(), anyString(), anyString());
+  }
+
+  @Test
+  public void shouldKeepLoadedValueOfReusedObject() throws Exception {
+    MatrixCursor cursor = notesCursor();
+    cursor.moveToFirst();
+    Note note = testSubject.fromCursor(cursor, Note.class);
+    note.body.get(databaseMock, TABLE);
+
+    testSubject.fromCursor(cursor, note);
+    assertThat(note.body.isLoaded()).isTrue();
+
+    cursor.moveToNext();
+    testSubject.fromCursor(cursor, note);
+    assertThat(note.body.isLoaded()).isFalse();
+    assertThat(note.body.getKey()).isEqualTo(2L);
+  }
+
+  @Test
+  public void shouldWriteOnlyLoadedLazyField() throws Exception {
+    Note note = new Note();
+    note.id = 1;
+
+    assertThat(testSubject.toContentValues(note).containsKey("BODY")).isFalse();
+
+    note.body = LazyField.of("new body");
+    ContentValues values = testSubject.toContentValues(note);
+    assertThat(values.getAsString("BODY")).isEqualTo("new body");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectLazyFieldOfOtherType() throws Exception {
+    testSubject.getProjection(InvalidLazyField.class);
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm.tests;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.*;
+
+import org.chalup.microorm.LazyText;
+import org.chalup.microorm.MicroOrm;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.content.ContentValues;
+import android.database.AbstractWindowedCursor;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+
+import java.nio.charset.Charset;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class LazyTextTest {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private MicroOrm testSubject;
+
+  public static class Article {
+    LazyText body;
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    testSubject = new MicroOrm();
+  }
+
+  @Test
+  public void shouldReadTextFromWindowedCursorWithoutDecoding() throws Exception {
+    AbstractWindowedCursor cursor = mock(AbstractWindowedCursor.class);
+    when(cursor.getColumnIndexOrThrow("BODY")).thenReturn(0);
+    when(cursor.getType(0)).thenReturn(Cursor.FIELD_TYPE_STRING);
+    when(cursor.getBlob(0)).thenReturn("hello\0".getBytes(UTF_8));
+
+    Article article = testSubject.fromCursor(cursor, Article.class);
+
+    assertThat(article.body.length()).isEqualTo(5);
+    assertThat(article.body.charAt(4)).isEqualTo('o');
+    assertThat(article.body.isDecoded()).isFalse();
+    assertThat(article.body.toString()).isEqualTo("hello");
+    verify(cursor, never()).getString(0);
+  }
+
+  @Test
+  public void shouldReadBlobColumn() throws Exception {
+    MatrixCursor cursor = new MatrixCursor(new String[] { "BODY" });
+    cursor.addRow(new Object[] { "za\u017c\u00f3\u0142\u0107".getBytes(UTF_8) });
+    cursor.moveToFirst();
+
+    Article article = testSubject.fromCursor(cursor, Article.class);
+
+    assertThat(article.body.isDecoded()).isFalse();
+    assertThat(article.body.length()).isEqualTo(6);
+    assertThat(article.body.charAt(2)).isEqualTo('\u017c');
+    assertThat(article.body.isDecoded()).isTrue();
+  }
+
+  @Test
+  public void shouldReadTextFromOtherCursors() throws Exception {
+    MatrixCursor cursor = new MatrixCursor(new String[] { "BODY" });
+    cursor.addRow(new Object[] { "hello" });
+    cursor.addRow(new Object[] { null });
+
+    cursor.moveToFirst();
+    assertThat(testSubject.fromCursor(cursor, Article.class).body.toString()).isEqualTo("hello");
+    cursor.moveToNext();
+    assertThat(testSubject.fromCursor(cursor, Article.class).body).isNull();
+  }
+
+  @Test
+  public void shouldCompareByContent() throws Exception {
+    LazyText encoded = new LazyText("za\u017c\u00f3\u0142\u0107".getBytes(UTF_8));
+    LazyText decoded = new LazyText("za\u017c\u00f3\u0142\u0107");
+
+    assertThat(encoded).isEqualTo(decoded);
+    assertThat(encoded.hashCode()).isEqualTo(decoded.hashCode());
+    assertThat(new LazyText("abc".getBytes(UTF_8))).isEqualTo(new LazyText("abc".getBytes(UTF_8)));
+    assertThat(new LazyText("abc".getBytes(UTF_8))).isNotEqualTo(new LazyText("abd".getBytes(UTF_8)));
+    assertThat(decoded.getUtf8Bytes()).isEqualTo("za\u017c\u00f3\u0142\u0107".getBytes(UTF_8));
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void shouldFailForIndexOutOfBounds() throws Exception {
+    new LazyText("abc".getBytes(UTF_8)).charAt(3);
+  }
+
+  @Test
+  public void shouldWriteText() throws Exception {
+    Article article = new Article();
+    article.body = new LazyText("hello".getBytes(UTF_8));
+
+    ContentValues values = testSubject.toContentValues(article);
+
+    assertThat(values.getAsString("BODY")).isEqualTo("hello");
+  }
+}
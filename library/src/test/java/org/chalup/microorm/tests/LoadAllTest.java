@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm.tests;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.*;
+
+import org.chalup.microorm.MicroOrm;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class LoadAllTest {
+
+  private static final String TABLE = "items";
+
+  private MicroOrm testSubject;
+  private SQLiteDatabase databaseMock;
+  private List<Long> insertedKeys;
+
+  public static class Item {
+    long id;
+    String name;
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    testSubject = new MicroOrm();
+    databaseMock = mock(SQLiteDatabase.class);
+    insertedKeys = new ArrayList<>();
+
+    when(databaseMock.query(eq(TABLE), any(String[].class), anyString(), any(String[].class), anyString(), anyString(), anyString()))
+        .thenAnswer(new Answer<Cursor>() {
+          @Override
+          public Cursor answer(InvocationOnMock invocation) throws Throwable {
+            String[] projection = (String[]) invocation.getArguments()[1];
+            MatrixCursor cursor = new MatrixCursor(projection);
+            for (String key : (String[]) invocation.getArguments()[3]) {
+              addItem(cursor, Long.parseLong(key));
+            }
+            return cursor;
+          }
+        });
+
+    final SQLiteStatement statementMock = mock(SQLiteStatement.class);
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable {
+        insertedKeys.add((Long) invocation.getArguments()[1]);
+        return null;
+      }
+    }).when(statementMock).bindLong(eq(1), anyLong());
+    when(databaseMock.compileStatement(anyString())).thenReturn(statementMock);
+
+    when(databaseMock.rawQuery(anyString(), any(String[].class))).thenAnswer(new Answer<Cursor>() {
+      @Override
+      public Cursor answer(InvocationOnMock invocation) throws Throwable {
+        MatrixCursor cursor = new MatrixCursor(new String[] { "ID", "NAME", "_id" });
+        for (long key : insertedKeys) {
+          addItem(cursor, key);
+        }
+        return cursor;
+      }
+    });
+  }
+
+  private static void addItem(MatrixCursor cursor, long key) {
+    if (key % 2 == 0) {
+      cursor.addRow(new Object[] { key, "Item " + key, key });
+    }
+  }
+
+  @Test
+  public void shouldReturnObjectsInOrderOfKeys() throws Exception {
+    List<Item> items = testSubject.loadAll(databaseMock, TABLE, Item.class, new long[] { 8, 2, 3, 4, 2 });
+
+    assertThat(items).hasSize(4);
+    assertThat(items.get(0).name).isEqualTo("Item 8");
+    assertThat(items.get(1).name).isEqualTo("Item 2");
+    assertThat(items.get(2).name).isEqualTo("Item 4");
+    assertThat(items.get(3)).isSameAs(items.get(1));
+
+    verify(databaseMock, times(1)).query(eq(TABLE), any(String[].class), eq("_id IN (?,?,?,?)"), any(String[].class), anyString(), anyString(), anyString());
+  }
+
+  @Test
+  public void shouldIndexObjectsByKey() throws Exception {
+    Map<Long, Item> items = testSubject.loadAllByKey(databaseMock, TABLE, "ID", Item.class, new long[] { 1, 2, 6 });
+
+    assertThat(items).hasSize(2);
+    assertThat(items.get(2L).id).isEqualTo(2L);
+    assertThat(items.get(6L).id).isEqualTo(6L);
+  }
+
+  @Test
+  public void shouldUseTemporaryTableForLargeNumberOfKeys() throws Exception {
+    long[] keys = new long[10000];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = keys.length - i;
+    }
+
+    List<Item> items = testSubject.loadAll(databaseMock, TABLE, Item.class, keys);
+
+    assertThat(items).hasSize(5000);
+    assertThat(items.get(0).id).isEqualTo(10000L);
+    assertThat(insertedKeys).hasSize(10000);
+
+    verify(databaseMock).beginTransaction();
+    verify(databaseMock).endTransaction();
+    verify(databaseMock, never()).query(anyString(), any(String[].class), anyString(), any(String[].class), anyString(), anyString(), anyString());
+  }
+
+  @Test
+  public void shouldCommitTemporaryTableTransaction() throws Exception {
+    long[] keys = new long[10000];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = i + 1;
+    }
+
+    testSubject.loadAll(databaseMock, TABLE, Item.class, keys);
+
+    InOrder inOrder = inOrder(databaseMock);
+    inOrder.verify(databaseMock).beginTransaction();
+    inOrder.verify(databaseMock).setTransactionSuccessful();
+    inOrder.verify(databaseMock).endTransaction();
+  }
+}
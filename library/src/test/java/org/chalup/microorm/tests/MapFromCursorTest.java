@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm.tests;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.chalup.microorm.IntObjectMap;
+import org.chalup.microorm.LongObjectMap;
+import org.chalup.microorm.MicroOrm;
+import org.chalup.microorm.annotations.Embedded;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.database.MatrixCursor;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class MapFromCursorTest {
+
+  private MicroOrm testSubject;
+
+  public static class Owner {
+    int ownerId;
+  }
+
+  public static class Pet {
+    long id;
+    String name;
+
+    @Embedded
+    Owner owner;
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    testSubject = new MicroOrm();
+  }
+
+  private static MatrixCursor pets() {
+    MatrixCursor cursor = new MatrixCursor(new String[] { "ID", "NAME", "OWNER_ID" });
+    cursor.addRow(new Object[] { 1L << 40, "Rex", 7 });
+    cursor.addRow(new Object[] { -3, "Tom", 8 });
+    cursor.addRow(new Object[] { 0, "Nemo", 9 });
+    return cursor;
+  }
+
+  @Test
+  public void shouldMapCursorByLongKey() throws Exception {
+    LongObjectMap<Pet> pets = testSubject.mapFromCursor(pets(), Pet.class, "id");
+
+    assertThat(pets.size()).isEqualTo(3);
+    assertThat(pets.get(1L << 40).name).isEqualTo("Rex");
+    assertThat(pets.get(-3).name).isEqualTo("Tom");
+    assertThat(pets.get(0).name).isEqualTo("Nemo");
+    assertThat(pets.get(1)).isNull();
+  }
+
+  @Test
+  public void shouldMapCursorByEmbeddedIntKey() throws Exception {
+    IntObjectMap<Pet> pets = testSubject.intMapFromCursor(pets(), Pet.class, "owner.ownerId");
+
+    assertThat(pets.size()).isEqualTo(3);
+    assertThat(pets.get(8).name).isEqualTo("Tom");
+    assertThat(pets.containsKey(10)).isFalse();
+  }
+
+  @Test
+  public void shouldKeepLastObjectForDuplicateKeys() throws Exception {
+    MatrixCursor cursor = pets();
+    cursor.addRow(new Object[] { -3, "Jerry", 10 });
+
+    LongObjectMap<Pet> pets = testSubject.mapFromCursor(cursor, Pet.class, "id");
+
+    assertThat(pets.size()).isEqualTo(3);
+    assertThat(pets.get(-3).name).isEqualTo("Jerry");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldFailForUnknownKeyField() throws Exception {
+    testSubject.mapFromCursor(pets(), Pet.class, "petId");
+  }
+
+  @Test
+  public void shouldBehaveLikeHashMap() throws Exception {
+    LongObjectMap<String> testMap = new LongObjectMap<>(4);
+    Map<Long, String> referenceMap = new HashMap<>();
+    Random random = new Random(42);
+
+    for (int i = 0; i < 20000; i++) {
+      long key = random.nextInt(2000) * 1024L;
+      if (random.nextInt(3) == 0) {
+        assertThat(testMap.remove(key)).isEqualTo(referenceMap.remove(key));
+      } else {
+        String value = "value " + i;
+        assertThat(testMap.put(key, value)).isEqualTo(referenceMap.put(key, value));
+      }
+      assertThat(testMap.size()).isEqualTo(referenceMap.size());
+    }
+
+    for (long key : testMap.keys()) {
+      assertThat(testMap.get(key)).isEqualTo(referenceMap.get(key));
+    }
+    for (long key = 0; key < 2000 * 1024L; key += 1024L) {
+      assertThat(testMap.get(key)).isEqualTo(referenceMap.get(key));
+    }
+    assertThat(testMap.values()).containsExactlyElementsIn(referenceMap.values());
+  }
+
+  @Test
+  public void intMapShouldBehaveLikeHashMap() throws Exception {
+    IntObjectMap<String> testMap = new IntObjectMap<>();
+    Map<Integer, String> referenceMap = new HashMap<>();
+    Random random = new Random(42);
+
+    for (int i = 0; i < 20000; i++) {
+      int key = (random.nextInt(2000) - 1000) << 12;
+      if (random.nextInt(3) == 0) {
+        assertThat(testMap.remove(key)).isEqualTo(referenceMap.remove(key));
+      } else {
+        String value = "value " + i;
+        assertThat(testMap.put(key, value)).isEqualTo(referenceMap.put(key, value));
+      }
+      assertThat(testMap.size()).isEqualTo(referenceMap.size());
+    }
+
+    for (int key : testMap.keys()) {
+      assertThat(testMap.get(key)).isEqualTo(referenceMap.get(key));
+    }
+    assertThat(testMap.values()).containsExactlyElementsIn(referenceMap.values());
+  }
+}
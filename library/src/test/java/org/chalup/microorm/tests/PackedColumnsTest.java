@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm.tests;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.chalup.microorm.MicroOrm;
+import org.chalup.microorm.annotations.Packed;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.content.ContentValues;
+import android.database.MatrixCursor;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class PackedColumnsTest {
+
+  private MicroOrm testSubject;
+
+  public enum Permission {
+    READ, WRITE, SHARE
+  }
+
+  public static class Contact {
+    long id;
+    @Packed(value = "FLAGS", bit = 0)
+    boolean starred;
+    String name;
+    @Packed(value = "FLAGS", bit = 1)
+    boolean blocked;
+    @Packed(value = "FLAGS", bit = 5)
+    Boolean archived;
+    @Packed("PERMISSIONS")
+    EnumSet<Permission> permissions;
+  }
+
+  public static class ConflictingBits {
+    @Packed(value = "FLAGS", bit = 0)
+    boolean first;
+    @Packed(value = "FLAGS", bit = 0)
+    boolean second;
+  }
+
+  public static class SharedEnumSetColumn {
+    @Packed(value = "FLAGS", bit = 0)
+    boolean first;
+    @Packed("FLAGS")
+    EnumSet<Permission> permissions;
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    testSubject = new MicroOrm();
+  }
+
+  @Test
+  public void shouldReplaceBooleanColumnsWithSinglePackedColumn() throws Exception {
+    assertThat(Arrays.asList(testSubject.getProjection(Contact.class))).containsExactly("ID", "FLAGS", "NAME", "PERMISSIONS").inOrder();
+  }
+
+  @Test
+  public void shouldUnpackBitsFromCursor() throws Exception {
+    MatrixCursor cursor = new MatrixCursor(new String[] { "ID", "FLAGS", "NAME", "PERMISSIONS" });
+    cursor.addRow(new Object[] { 1, 0x21, "John", 0x5 });
+    cursor.moveToFirst();
+
+    Contact contact = testSubject.fromCursor(cursor, Contact.class);
+
+    assertThat(contact.starred).isTrue();
+    assertThat(contact.blocked).isFalse();
+    assertThat(contact.archived).isTrue();
+    assertThat(contact.permissions).containsExactly(Permission.READ, Permission.SHARE);
+  }
+
+  @Test
+  public void shouldReadNullPackedColumnAsNullForBoxedFields() throws Exception {
+    MatrixCursor cursor = new MatrixCursor(new String[] { "ID", "FLAGS", "NAME", "PERMISSIONS" });
+    cursor.addRow(new Object[] { 1, null, "John", 0 });
+    cursor.moveToFirst();
+
+    Contact contact = new Contact();
+    contact.starred = true;
+    contact.archived = true;
+    testSubject.fromCursor(cursor, contact);
+
+    assertThat(contact.starred).isFalse();
+    assertThat(contact.blocked).isFalse();
+    assertThat(contact.archived).isNull();
+  }
+
+  @Test
+  public void shouldRefillEnumSetOfReusedObject() throws Exception {
+    MatrixCursor cursor = new MatrixCursor(new String[] { "ID", "FLAGS", "NAME", "PERMISSIONS" });
+    cursor.addRow(new Object[] { 1, 0, "John", 0x3 });
+    cursor.addRow(new Object[] { 2, 0, "Jane", 0 });
+    cursor.addRow(new Object[] { 3, 0, "Jim", null });
+
+    Contact contact = new Contact();
+    EnumSet<Permission> permissions = EnumSet.noneOf(Permission.class);
+    contact.permissions = permissions;
+
+    cursor.moveToFirst();
+    testSubject.fromCursor(cursor, contact);
+    assertThat(contact.permissions).containsExactly(Permission.READ, Permission.WRITE);
+
+    cursor.moveToNext();
+    testSubject.fromCursor(cursor, contact);
+    assertThat(contact.permissions).isSameAs(permissions);
+    assertThat(contact.permissions).isEmpty();
+
+    cursor.moveToNext();
+    testSubject.fromCursor(cursor, contact);
+    assertThat(contact.permissions).isNull();
+  }
+
+  @Test
+  public void shouldPackBitsToContentValues() throws Exception {
+    Contact contact = new Contact();
+    contact.blocked = true;
+    contact.archived = true;
+    contact.permissions = EnumSet.of(Permission.WRITE);
+
+    ContentValues values = testSubject.toContentValues(contact);
+
+    assertThat(values.size()).isEqualTo(4);
+    assertThat(values.getAsLong("FLAGS")).isEqualTo(0x22L);
+    assertThat(values.getAsLong("PERMISSIONS")).isEqualTo(0x2L);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectFieldsSharingBit() throws Exception {
+    testSubject.getProjection(ConflictingBits.class);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectEnumSetSharingColumn() throws Exception {
+    testSubject.getProjection(SharedEnumSetColumn.class);
+  }
+}
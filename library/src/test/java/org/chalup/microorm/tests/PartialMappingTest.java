@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm.tests;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.chalup.microorm.MicroOrm;
+import org.chalup.microorm.PartialMapping;
+import org.chalup.microorm.annotations.Embedded;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.database.MatrixCursor;
+
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class PartialMappingTest {
+
+  private MicroOrm testSubject;
+
+  public static class Author {
+    String firstName;
+    String lastName;
+  }
+
+  public static class Book {
+    long id;
+    String title;
+    byte[] cover;
+    int pages = -1;
+
+    @Embedded
+    Author author;
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    testSubject = new MicroOrm();
+  }
+
+  @Test
+  public void shouldReturnNarrowedProjectionInEntityOrder() throws Exception {
+    PartialMapping<Book> mapping = testSubject.getPartialMapping(Book.class, "author.lastName", "title", "id");
+
+    assertThat(mapping.getProjection()).asList().containsExactly("ID", "TITLE", "LAST_NAME").inOrder();
+  }
+
+  @Test
+  public void shouldSelectAllColumnsOfEmbeddedObject() throws Exception {
+    PartialMapping<Book> mapping = testSubject.getPartialMapping(Book.class, "author");
+
+    assertThat(mapping.getProjection()).asList().containsExactly("FIRST_NAME", "LAST_NAME").inOrder();
+  }
+
+  @Test
+  public void shouldMapOnlySelectedFields() throws Exception {
+    PartialMapping<Book> mapping = testSubject.getPartialMapping(Book.class, "id", "title", "author.lastName");
+
+    MatrixCursor cursor = new MatrixCursor(mapping.getProjection());
+    cursor.addRow(new Object[] { 1, "Solaris", "Lem" });
+    cursor.addRow(new Object[] { 2, "Ubik", "Dick" });
+
+    List<Book> books = mapping.listFromCursor(cursor);
+
+    assertThat(books).hasSize(2);
+    assertThat(books.get(1).id).isEqualTo(2L);
+    assertThat(books.get(1).title).isEqualTo("Ubik");
+    assertThat(books.get(1).author.lastName).isEqualTo("Dick");
+    assertThat(books.get(1).author.firstName).isNull();
+    assertThat(books.get(1).cover).isNull();
+    assertThat(books.get(1).pages).isEqualTo(-1);
+  }
+
+  @Test
+  public void shouldIgnoreUnselectedColumnsPresentInCursor() throws Exception {
+    PartialMapping<Book> mapping = testSubject.getPartialMapping(Book.class, "title");
+
+    MatrixCursor cursor = new MatrixCursor(testSubject.getProjection(Book.class));
+    cursor.addRow(new Object[] { 1, "Solaris", null, 204, "Stanislaw", "Lem" });
+    cursor.moveToFirst();
+
+    Book book = mapping.fromCursor(cursor);
+    assertThat(book.title).isEqualTo("Solaris");
+    assertThat(book.pages).isEqualTo(-1);
+  }
+
+  @Test
+  public void shouldCacheMappingForClassAndFieldSet() throws Exception {
+    assertThat(testSubject.getPartialMapping(Book.class, "id", "title"))
+        .isSameAs(testSubject.getPartialMapping(Book.class, "title", "id"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldFailForMissingSelectedColumn() throws Exception {
+    MatrixCursor cursor = new MatrixCursor(new String[] { "ID" });
+    cursor.addRow(new Object[] { 1 });
+
+    testSubject.getPartialMapping(Book.class, "id", "title").listFromCursor(cursor);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldFailForUnknownField() throws Exception {
+    testSubject.getPartialMapping(Book.class, "isbn");
+  }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm.tests;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.chalup.microorm.MicroOrm;
+import org.chalup.microorm.TypeAdapter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class PipelinedMapperTest {
+
+  private static final int ROW_COUNT = 1000;
+
+  private MicroOrm testSubject;
+  private ExecutorService executor;
+
+  public static class Entity {
+    long id;
+    String name;
+    double weight;
+    byte[] data;
+  }
+
+  public static class Failing {
+    Faulty value;
+  }
+
+  public static class Faulty {
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    testSubject = new MicroOrm();
+    executor = Executors.newFixedThreadPool(3);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void shouldMapAllRowsInCursorOrder() throws Exception {
+    MatrixCursor cursor = new MatrixCursor(new String[] { "ID", "NAME", "WEIGHT", "DATA" });
+    for (int i = 0; i < ROW_COUNT; i++) {
+      cursor.addRow(new Object[] { i, "name " + i, i / 2.0, new byte[] { (byte) i } });
+    }
+
+    List<Entity> entities = testSubject.listFromCursor(cursor, Entity.class, executor, 3);
+
+    assertThat(entities).hasSize(ROW_COUNT);
+    for (int i = 0; i < ROW_COUNT; i++) {
+      Entity entity = entities.get(i);
+      assertThat(entity.id).isEqualTo(i);
+      assertThat(entity.name).isEqualTo("name " + i);
+      assertThat(entity.weight).isEqualTo(i / 2.0);
+      assertThat(entity.data).isEqualTo(new byte[] { (byte) i });
+    }
+  }
+
+  @Test
+  public void shouldConvertValuesLikeCursor() throws Exception {
+    MatrixCursor cursor = new MatrixCursor(new String[] { "ID", "NAME", "WEIGHT", "DATA" });
+    cursor.addRow(new Object[] { "42", 7, null, null });
+
+    List<Entity> entities = testSubject.listFromCursor(cursor, Entity.class, executor, 2);
+
+    assertThat(entities).hasSize(1);
+    assertThat(entities.get(0).id).isEqualTo(42);
+    assertThat(entities.get(0).name).isEqualTo("7");
+    assertThat(entities.get(0).weight).isEqualTo(0.0);
+    assertThat(entities.get(0).data).isNull();
+  }
+
+  @Test
+  public void shouldReturnEmptyListForEmptyCursor() throws Exception {
+    MatrixCursor cursor = new MatrixCursor(new String[] { "ID", "NAME", "WEIGHT", "DATA" });
+
+    assertThat(testSubject.listFromCursor(cursor, Entity.class, executor, 2)).isEmpty();
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void shouldRethrowExceptionThrownByWorker() throws Exception {
+    MicroOrm microOrm = new MicroOrm.Builder()
+        .registerTypeAdapter(Faulty.class, new TypeAdapter<Faulty>() {
+          @Override
+          public Faulty fromCursor(Cursor c, String columnName) {
+            throw new UnsupportedOperationException();
+          }
+
+          @Override
+          public void toContentValues(ContentValues values, String columnName, Faulty object) {
+          }
+        })
+        .build();
+
+    MatrixCursor cursor = new MatrixCursor(new String[] { "VALUE" });
+    for (int i = 0; i < ROW_COUNT; i++) {
+      cursor.addRow(new Object[] { i });
+    }
+
+    microOrm.listFromCursor(cursor, Failing.class, executor, 2);
+  }
+
+  private static MatrixCursor entitiesCursor() {
+    MatrixCursor cursor = new MatrixCursor(new String[] { "ID", "NAME", "WEIGHT", "DATA" });
+    for (int i = 0; i < ROW_COUNT; i++) {
+      cursor.addRow(new Object[] { i, "name " + i, i / 2.0, new byte[] { (byte) i } });
+    }
+    return cursor;
+  }
+
+  @Test(timeout = 10000)
+  public void shouldMapSeriallyWithDirectExecutor() throws Exception {
+    Executor directExecutor = new Executor() {
+      @Override
+      public void execute(Runnable command) {
+        command.run();
+      }
+    };
+
+    List<Entity> entities = testSubject.listFromCursor(entitiesCursor(), Entity.class, directExecutor, 3);
+
+    assertThat(entities).hasSize(ROW_COUNT);
+    assertThat(entities.get(ROW_COUNT - 1).id).isEqualTo(ROW_COUNT - 1L);
+  }
+
+  @Test(timeout = 10000)
+  public void shouldMapWhenSomeWorkersRunOnCallingThread() throws Exception {
+    final AtomicInteger submitted = new AtomicInteger();
+    Executor callerRunsExecutor = new Executor() {
+      @Override
+      public void execute(Runnable command) {
+        if (submitted.getAndIncrement() == 0) {
+          executor.execute(command);
+        } else {
+          command.run();
+        }
+      }
+    };
+
+    List<Entity> entities = testSubject.listFromCursor(entitiesCursor(), Entity.class, callerRunsExecutor, 3);
+
+    assertThat(entities).hasSize(ROW_COUNT);
+    assertThat(entities.get(ROW_COUNT - 1).name).isEqualTo("name " + (ROW_COUNT - 1));
+  }
+
+  @Test(timeout = 10000, expected = RejectedExecutionException.class)
+  public void shouldRethrowRejectionWithoutLeavingWorkersBlocked() throws Exception {
+    final AtomicInteger submitted = new AtomicInteger();
+    Executor rejectingExecutor = new Executor() {
+      @Override
+      public void execute(Runnable command) {
+        if (submitted.getAndIncrement() > 0) {
+          throw new RejectedExecutionException();
+        }
+        executor.execute(command);
+      }
+    };
+
+    try {
+      testSubject.listFromCursor(entitiesCursor(), Entity.class, rejectingExecutor, 3);
+    } finally {
+      executor.shutdown();
+      assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+    }
+  }
+}
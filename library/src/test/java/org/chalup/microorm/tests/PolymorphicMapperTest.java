@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm.tests;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.*;
+
+import org.chalup.microorm.MicroOrm;
+import org.chalup.microorm.PolymorphicMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.database.Cursor;
+import android.database.MatrixCursor;
+
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class PolymorphicMapperTest {
+
+  private static final String TYPE_COLUMN = "TYPE";
+
+  private PolymorphicMapper<Shape> testSubject;
+
+  public static class Shape {
+    long id;
+    String type;
+    String name;
+  }
+
+  public static class Circle extends Shape {
+    double radius;
+  }
+
+  public static class Square extends Shape {
+    double side;
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    testSubject = new MicroOrm()
+        .getPolymorphicMapper(Shape.class, TYPE_COLUMN)
+        .register("circle", Circle.class)
+        .register("square", Square.class);
+  }
+
+  private static MatrixCursor shapes() {
+    MatrixCursor cursor = new MatrixCursor(new String[] { "ID", TYPE_COLUMN, "NAME", "RADIUS", "SIDE" });
+    cursor.addRow(new Object[] { 1L, "circle", "wheel", 2.5, null });
+    cursor.addRow(new Object[] { 2L, "square", "tile", null, 4.0 });
+    cursor.addRow(new Object[] { 3L, "circle", "coin", 0.5, null });
+    return cursor;
+  }
+
+  @Test
+  public void shouldCreateObjectsOfRegisteredTypes() throws Exception {
+    List<Shape> result = testSubject.listFromCursor(shapes());
+
+    assertThat(result).hasSize(3);
+    assertThat(result.get(0)).isInstanceOf(Circle.class);
+    assertThat(result.get(1)).isInstanceOf(Square.class);
+    assertThat(result.get(2)).isInstanceOf(Circle.class);
+
+    assertThat(result.get(0).name).isEqualTo("wheel");
+    assertThat(((Circle) result.get(0)).radius).isEqualTo(2.5);
+    assertThat(((Square) result.get(1)).side).isEqualTo(4.0);
+    assertThat(result.get(2).id).isEqualTo(3L);
+  }
+
+  @Test
+  public void shouldCreateObjectFromCurrentRow() throws Exception {
+    Cursor c = shapes();
+    c.moveToPosition(1);
+
+    Shape shape = testSubject.apply(c);
+
+    assertThat(shape).isInstanceOf(Square.class);
+    assertThat(shape.type).isEqualTo("square");
+  }
+
+  @Test
+  public void shouldLookUpCommonColumnsOnce() throws Exception {
+    Cursor c = spy(shapes());
+
+    testSubject.listFromCursor(c);
+
+    verify(c, times(1)).getColumnIndexOrThrow("NAME");
+    verify(c, times(1)).getColumnIndexOrThrow("RADIUS");
+    verify(c, times(1)).getColumnIndexOrThrow("ID");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldFailForUnregisteredDiscriminatorValue() throws Exception {
+    MatrixCursor cursor = shapes();
+    cursor.addRow(new Object[] { 4L, "triangle", "sign", null, null });
+
+    testSubject.listFromCursor(cursor);
+  }
+}
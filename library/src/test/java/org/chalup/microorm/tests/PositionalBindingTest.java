@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm.tests;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.*;
+
+import org.chalup.microorm.MicroOrm;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.database.MatrixCursor;
+
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class PositionalBindingTest {
+
+  private MicroOrm testSubject;
+
+  public static class Song {
+    long id;
+    String title;
+    int duration;
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    testSubject = new MicroOrm();
+  }
+
+  @Test
+  public void shouldNotLookUpColumnsOfCursorWithProjectionLayout() throws Exception {
+    MatrixCursor cursor = spy(new MatrixCursor(testSubject.getProjection(Song.class)));
+    cursor.addRow(new Object[] { 1, "Yesterday", 125 });
+    cursor.addRow(new Object[] { 2, "Help!", 138 });
+
+    List<Song> songs = testSubject.listFromCursor(cursor, Song.class);
+
+    assertThat(songs).hasSize(2);
+    assertThat(songs.get(1).title).isEqualTo("Help!");
+    assertThat(songs.get(1).duration).isEqualTo(138);
+    verify(cursor, never()).getColumnIndex(anyString());
+    verify(cursor, never()).getColumnIndexOrThrow(anyString());
+  }
+
+  @Test
+  public void shouldBindPositionallyWhenCursorHasTrailingColumns() throws Exception {
+    MatrixCursor cursor = spy(new MatrixCursor(new String[] { "ID", "TITLE", "DURATION", "rowid" }));
+    cursor.addRow(new Object[] { 1, "Yesterday", 125, 10 });
+
+    List<Song> songs = testSubject.listFromCursor(cursor, Song.class);
+
+    assertThat(songs.get(0).duration).isEqualTo(125);
+    verify(cursor, never()).getColumnIndexOrThrow(anyString());
+  }
+
+  @Test
+  public void shouldLookUpColumnsOfReorderedCursor() throws Exception {
+    MatrixCursor cursor = new MatrixCursor(new String[] { "DURATION", "ID", "TITLE" });
+    cursor.addRow(new Object[] { 125, 1, "Yesterday" });
+
+    List<Song> songs = testSubject.listFromCursor(cursor, Song.class);
+
+    assertThat(songs.get(0).id).isEqualTo(1L);
+    assertThat(songs.get(0).title).isEqualTo("Yesterday");
+    assertThat(songs.get(0).duration).isEqualTo(125);
+  }
+
+  @Test
+  public void shouldBindPositionallyForSparseMapping() throws Exception {
+    MatrixCursor cursor = spy(new MatrixCursor(new String[] { "ID", "TITLE" }));
+    cursor.addRow(new Object[] { 1, "Yesterday" });
+
+    List<Song> songs = testSubject.listFromCursorSparse(cursor, Song.class);
+
+    assertThat(songs.get(0).title).isEqualTo("Yesterday");
+    verify(cursor, times(1)).getColumnIndex("DURATION");
+    verify(cursor, never()).getColumnIndex("TITLE");
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm.tests;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.*;
+
+import org.chalup.microorm.MicroOrm;
+import org.chalup.microorm.annotations.DBIgnore;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class PrefetchTest {
+
+  private static final String CUSTOMERS_TABLE = "customers";
+  private static final long EXISTING_CUSTOMERS = 2000;
+
+  private MicroOrm testSubject;
+  private SQLiteDatabase databaseMock;
+
+  @Before
+  public void setUp() throws Exception {
+    testSubject = new MicroOrm();
+    databaseMock = mock(SQLiteDatabase.class);
+
+    when(databaseMock.query(eq(CUSTOMERS_TABLE), any(String[].class), anyString(), any(String[].class), anyString(), anyString(), anyString()))
+        .thenAnswer(new Answer<Cursor>() {
+          @Override
+          public Cursor answer(InvocationOnMock invocation) throws Throwable {
+            String[] projection = (String[]) invocation.getArguments()[1];
+            String[] keys = (String[]) invocation.getArguments()[3];
+
+            assertThat(projection).asList().containsExactly("ID", "NAME", "_id").inOrder();
+            assertThat(keys.length).isAtMost(999);
+
+            MatrixCursor cursor = new MatrixCursor(projection);
+            for (String key : keys) {
+              long id = Long.parseLong(key);
+              if (id < EXISTING_CUSTOMERS) {
+                cursor.addRow(new Object[] { id, "Customer " + id, id });
+              }
+            }
+            return cursor;
+          }
+        });
+  }
+
+  public static class Customer {
+    long id;
+    String name;
+  }
+
+  public static class Order {
+    long id;
+    Long customerId;
+
+    @DBIgnore
+    Customer customer;
+
+    Order() {
+    }
+
+    Order(long id, Long customerId) {
+      this.id = id;
+      this.customerId = customerId;
+    }
+  }
+
+  @Test
+  public void shouldSetReferencedObjects() throws Exception {
+    List<Order> orders = new ArrayList<>();
+    orders.add(new Order(1, 7L));
+    orders.add(new Order(2, 3L));
+    orders.add(new Order(3, 7L));
+
+    testSubject.prefetch(databaseMock, orders, "customerId", "customer", CUSTOMERS_TABLE);
+
+    assertThat(orders.get(0).customer.name).isEqualTo("Customer 7");
+    assertThat(orders.get(1).customer.name).isEqualTo("Customer 3");
+    assertThat(orders.get(2).customer).isSameAs(orders.get(0).customer);
+  }
+
+  @Test
+  public void shouldQueryDistinctKeysInChunks() throws Exception {
+    List<Order> orders = new ArrayList<>();
+    for (long i = 0; i < 10000; i++) {
+      orders.add(new Order(i, i % 2500));
+    }
+
+    testSubject.prefetch(databaseMock, orders, "customerId", "customer", CUSTOMERS_TABLE);
+
+    verify(databaseMock, times(3)).query(eq(CUSTOMERS_TABLE), any(String[].class), anyString(), any(String[].class), anyString(), anyString(), anyString());
+    assertThat(orders.get(9999).customer).isNull();
+    assertThat(orders.get(1999).customer.id).isEqualTo(1999L);
+  }
+
+  @Test
+  public void shouldSkipNullKeys() throws Exception {
+    List<Order> orders = Collections.singletonList(new Order(1, null));
+
+    testSubject.prefetch(databaseMock, orders, "customerId", "customer", CUSTOMERS_TABLE);
+
+    assertThat(orders.get(0).customer).isNull();
+    verify(databaseMock, never()).query(anyString(), any(String[].class), anyString(), any(String[].class), anyString(), anyString(), anyString());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldFailForNonIntegralKeyField() throws Exception {
+    testSubject.prefetch(databaseMock, Collections.singletonList(new Customer()), "name", "id", CUSTOMERS_TABLE);
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm.tests;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.chalup.microorm.MicroOrm;
+import org.chalup.microorm.ProjectionProfiler;
+import org.chalup.microorm.annotations.Embedded;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.database.MatrixCursor;
+
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class ProjectionProfilerTest {
+
+  private static final String TAG = "contacts_list";
+
+  private MicroOrm testSubject;
+  private ProjectionProfiler<Contact> profiler;
+
+  public static class Address {
+    String street;
+    String city;
+  }
+
+  public static class Contact {
+    long id;
+    String name;
+    byte[] photo;
+
+    @Embedded
+    Address address;
+  }
+
+  public interface ContactView {
+    long getId();
+
+    String getName();
+
+    Address getAddress();
+  }
+
+  public interface InvalidContactView {
+    String getEmail();
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    testSubject = new MicroOrm();
+    profiler = testSubject.getProjectionProfiler(Contact.class);
+  }
+
+  private MatrixCursor contacts(String[] projection) {
+    MatrixCursor cursor = new MatrixCursor(projection);
+    for (int i = 0; i < 3; i++) {
+      MatrixCursor.RowBuilder row = cursor.newRow();
+      for (String column : projection) {
+        if (column.equals("ID")) {
+          row.add(i);
+        } else if (column.equals("PHOTO")) {
+          row.add(new byte[100]);
+        } else {
+          row.add("abcd");
+        }
+      }
+    }
+    return cursor;
+  }
+
+  @Test
+  public void shouldSuggestColumnsOfReadFields() throws Exception {
+    profiler.recordRead(TAG, "name");
+    profiler.recordRead(TAG, "address.city");
+    profiler.recordRead(TAG, "id");
+
+    assertThat(profiler.getSuggestedProjection(TAG)).asList().containsExactly("ID", "NAME", "CITY").inOrder();
+    assertThat(profiler.getSuggestedProjection("other")).isEqualTo(testSubject.getProjection(Contact.class));
+  }
+
+  @Test
+  public void shouldApplySuggestedProjectionOnlyWhenEnabled() throws Exception {
+    profiler.recordRead(TAG, "address");
+
+    assertThat(profiler.getProjection(TAG)).isEqualTo(testSubject.getProjection(Contact.class));
+
+    profiler.setAutoApply(true);
+    assertThat(profiler.getProjection(TAG)).asList().containsExactly("STREET", "CITY").inOrder();
+  }
+
+  @Test
+  public void shouldReportDataInUnreadColumns() throws Exception {
+    List<ContactView> contacts = profiler.listFromCursor(TAG, contacts(testSubject.getProjection(Contact.class)), ContactView.class);
+    for (ContactView contact : contacts) {
+      assertThat(contact.getName()).isEqualTo("abcd");
+    }
+
+    ProjectionProfiler.Report report = profiler.getReport(TAG);
+    assertThat(report.getRowCount()).isEqualTo(3L);
+    assertThat(report.getTotalBytes()).isEqualTo(3 * (8 + 4 + 100 + 4 + 4L));
+    assertThat(report.getUnreadBytes()).isEqualTo(3 * (8 + 100 + 4 + 4L));
+    assertThat(report.getUnreadColumns()).asList().containsExactly("ID", "PHOTO", "STREET", "CITY").inOrder();
+  }
+
+  @Test
+  public void shouldRecordReadsOfEmbeddedObjectThroughViews() throws Exception {
+    List<ContactView> contacts = profiler.listFromCursor(TAG, contacts(testSubject.getProjection(Contact.class)), ContactView.class);
+    assertThat(contacts.get(1).getId()).isEqualTo(1L);
+    assertThat(contacts.get(1).getAddress().city).isEqualTo("abcd");
+
+    assertThat(profiler.getSuggestedProjection(TAG)).asList().containsExactly("ID", "STREET", "CITY").inOrder();
+  }
+
+  @Test
+  public void shouldMapCursorQueriedWithNarrowedProjection() throws Exception {
+    profiler.recordRead(TAG, "id");
+    profiler.recordRead(TAG, "name");
+    profiler.setAutoApply(true);
+
+    List<ContactView> contacts = profiler.listFromCursor(TAG, contacts(profiler.getProjection(TAG)), ContactView.class);
+
+    assertThat(contacts).hasSize(3);
+    assertThat(contacts.get(2).getId()).isEqualTo(2L);
+    assertThat(contacts.get(2).getName()).isEqualTo("abcd");
+    assertThat(profiler.getReport(TAG).getUnreadBytes()).isEqualTo(0L);
+  }
+
+  @Test
+  public void shouldWidenSuggestedProjectionOnReadOfUnavailableField() throws Exception {
+    profiler.recordRead(TAG, "name");
+    profiler.setAutoApply(true);
+
+    List<ContactView> contacts = profiler.listFromCursor(TAG, contacts(profiler.getProjection(TAG)), ContactView.class);
+    assertThat(contacts.get(0).getAddress().street).isNull();
+
+    assertThat(profiler.getProjection(TAG)).asList().containsExactly("NAME", "STREET", "CITY").inOrder();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldNotCreateWritableObjectsFromNarrowedProjection() throws Exception {
+    profiler.recordRead(TAG, "name");
+    profiler.setAutoApply(true);
+
+    profiler.listFromCursor(TAG, contacts(profiler.getProjection(TAG)));
+  }
+
+  @Test
+  public void shouldNotCreateReportForUnknownTag() throws Exception {
+    assertThat(profiler.getReport(TAG)).isNull();
+    assertThat(profiler.getReport(TAG)).isNull();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectViewWithGetterOfUnknownField() throws Exception {
+    profiler.listFromCursor(TAG, contacts(testSubject.getProjection(Contact.class)), InvalidContactView.class);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldFailToRecordReadOfUnknownField() throws Exception {
+    profiler.recordRead(TAG, "email");
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm.tests;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.chalup.microorm.MicroOrm;
+import org.chalup.microorm.RemapResult;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.database.Cursor;
+
+import java.util.Collections;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class RemapFromCursorTest {
+
+  private MicroOrm testSubject;
+
+  public static class Item {
+    long id;
+    String title;
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    testSubject = new MicroOrm();
+  }
+
+  private static TestCursorBuilder items() {
+    return TestCursorBuilder.cursor("ID", "TITLE");
+  }
+
+  private RemapResult<Item> initialResult() {
+    Cursor c = items()
+        .addRow(1L, "first")
+        .addRow(2L, "second")
+        .addRow(3L, "third")
+        .addRow(4L, "fourth");
+
+    return testSubject.remapFromCursor(Collections.<Item>emptyList(), c, Item.class, "id");
+  }
+
+  @Test
+  public void shouldReportAllRowsAsInsertedIntoEmptyList() throws Exception {
+    RemapResult<Item> result = initialResult();
+
+    assertThat(result.getList()).hasSize(4);
+    assertThat(result.getInsertedPositions()).isEqualTo(new int[] { 0, 1, 2, 3 });
+    assertThat(result.getRemovedPositions()).isEmpty();
+  }
+
+  @Test
+  public void shouldReuseObjectsForUnchangedRows() throws Exception {
+    List<Item> previous = initialResult().getList();
+
+    Cursor c = items()
+        .addRow(1L, "first")
+        .addRow(2L, "second")
+        .addRow(3L, "third")
+        .addRow(4L, "fourth");
+
+    RemapResult<Item> result = testSubject.remapFromCursor(previous, c, Item.class, "id");
+
+    assertThat(result.isUnchanged()).isTrue();
+    for (int i = 0; i < previous.size(); i++) {
+      assertThat(result.getList().get(i)).isSameAs(previous.get(i));
+    }
+  }
+
+  @Test
+  public void shouldReportChanges() throws Exception {
+    List<Item> previous = initialResult().getList();
+
+    Cursor c = items()
+        .addRow(4L, "fourth")
+        .addRow(1L, "first")
+        .addRow(5L, "fifth")
+        .addRow(3L, "third, changed");
+
+    RemapResult<Item> result = testSubject.remapFromCursor(previous, c, Item.class, "id");
+    List<Item> list = result.getList();
+
+    assertThat(list.get(0)).isSameAs(previous.get(3));
+    assertThat(list.get(1)).isSameAs(previous.get(0));
+    assertThat(list.get(2).title).isEqualTo("fifth");
+    assertThat(list.get(3)).isNotSameAs(previous.get(2));
+    assertThat(list.get(3).title).isEqualTo("third, changed");
+
+    assertThat(result.getInsertedPositions()).isEqualTo(new int[] { 2 });
+    assertThat(result.getRemovedPositions()).isEqualTo(new int[] { 1 });
+    assertThat(result.getChangedPositions()).isEqualTo(new int[] { 3 });
+    assertThat(result.getMovedPositions()).isEqualTo(new int[] { 0 });
+  }
+
+  @Test
+  public void shouldRecreateObjectsWhenPreviousListHasNoHashes() throws Exception {
+    List<Item> previous = testSubject.listFromCursor(items().addRow(1L, "first").addRow(2L, "second"), Item.class);
+
+    Cursor c = items()
+        .addRow(1L, "first")
+        .addRow(2L, "second");
+
+    RemapResult<Item> result = testSubject.remapFromCursor(previous, c, Item.class, "id");
+
+    assertThat(result.getList().get(0)).isNotSameAs(previous.get(0));
+    assertThat(result.getChangedPositions()).isEqualTo(new int[] { 0, 1 });
+    assertThat(result.getInsertedPositions()).isEmpty();
+    assertThat(result.getMovedPositions()).isEmpty();
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void shouldReturnUnmodifiableList() throws Exception {
+    initialResult().getList().add(new Item());
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm.tests;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.chalup.microorm.MicroOrm;
+import org.chalup.microorm.RowAccessor;
+import org.chalup.microorm.RowFilter;
+import org.chalup.microorm.TypeAdapter;
+import org.chalup.microorm.annotations.Embedded;
+import org.chalup.microorm.guava.Function;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class RowFilterTest {
+
+  private static int createdInstances;
+
+  private MicroOrm testSubject;
+
+  public static class Address {
+    String city;
+  }
+
+  public static class Person {
+    long id;
+    String name;
+
+    @Embedded
+    Address address;
+
+    public Person() {
+      createdInstances++;
+    }
+  }
+
+  public static class Tag {
+    final String value;
+
+    Tag(String value) {
+      this.value = value;
+    }
+  }
+
+  private static final RowFilter EVEN_ROWS = new RowFilter() {
+    @Override
+    public boolean accept(RowAccessor row) {
+      return row.getLong("id") % 2 == 0;
+    }
+  };
+
+  @Before
+  public void setUp() throws Exception {
+    testSubject = new MicroOrm();
+    createdInstances = 0;
+  }
+
+  private static MatrixCursor people() {
+    MatrixCursor cursor = new MatrixCursor(new String[] { "ID", "NAME", "CITY" });
+    for (int i = 0; i < 10; i++) {
+      cursor.addRow(new Object[] { i, "person " + i, i < 5 ? "Warsaw" : "Krakow" });
+    }
+    return cursor;
+  }
+
+  @Test
+  public void shouldNotCreateObjectsForRejectedRows() throws Exception {
+    List<Person> persons = testSubject.listFromCursor(people(), Person.class, EVEN_ROWS);
+
+    assertThat(persons).hasSize(5);
+    assertThat(persons.get(1).id).isEqualTo(2L);
+    assertThat(persons.get(1).name).isEqualTo("person 2");
+    assertThat(createdInstances).isEqualTo(5);
+  }
+
+  @Test
+  public void shouldReadEmbeddedFieldsByPath() throws Exception {
+    List<Person> persons = testSubject.listFromCursor(people(), Person.class, new RowFilter() {
+      @Override
+      public boolean accept(RowAccessor row) {
+        return row.getString("address.city").equals("Krakow");
+      }
+    });
+
+    assertThat(persons).hasSize(5);
+    assertThat(persons.get(0).id).isEqualTo(5L);
+    assertThat(persons.get(0).address.city).isEqualTo("Krakow");
+  }
+
+  @Test
+  public void shouldReadValuesWithRegisteredTypeAdapters() throws Exception {
+    MicroOrm microOrm = new MicroOrm.Builder()
+        .registerTypeAdapter(Tag.class, new TypeAdapter<Tag>() {
+          @Override
+          public Tag fromCursor(Cursor c, String columnName) {
+            return new Tag(c.getString(c.getColumnIndexOrThrow(columnName)).toUpperCase());
+          }
+
+          @Override
+          public void toContentValues(ContentValues values, String columnName, Tag object) {
+            values.put(columnName, object.value);
+          }
+        })
+        .build();
+
+    List<Person> persons = microOrm.listFromCursor(people(), Person.class, new RowFilter() {
+      @Override
+      public boolean accept(RowAccessor row) {
+        return row.get("name", Tag.class).value.equals("PERSON 7");
+      }
+    });
+
+    assertThat(persons).hasSize(1);
+    assertThat(persons.get(0).id).isEqualTo(7L);
+  }
+
+  @Test
+  public void functionShouldReturnNullForRejectedRows() throws Exception {
+    Function<Cursor, Person> function = testSubject.getFunctionFor(Person.class, EVEN_ROWS);
+    MatrixCursor cursor = people();
+
+    cursor.moveToPosition(3);
+    assertThat(function.apply(cursor)).isNull();
+
+    cursor.moveToPosition(4);
+    assertThat(function.apply(cursor).name).isEqualTo("person 4");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldFailForUnknownField() throws Exception {
+    testSubject.listFromCursor(people(), Person.class, new RowFilter() {
+      @Override
+      public boolean accept(RowAccessor row) {
+        return row.isNull("age");
+      }
+    });
+  }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm.tests;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.chalup.microorm.IndexedTypeAdapter;
+import org.chalup.microorm.MicroOrm;
+import org.chalup.microorm.RowViewMapping;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class RowViewTest {
+
+  private MicroOrm testSubject;
+  private CountingAdapter countingAdapter;
+
+  public static class Tag {
+    final String name;
+
+    Tag(String name) {
+      this.name = name;
+    }
+  }
+
+  public interface MessageRow {
+    Long getId();
+
+    String getSubject();
+
+    Boolean isUnread();
+
+    Tag tag();
+  }
+
+  public interface InvalidRow {
+    String getSubject(int length);
+  }
+
+  public interface PrimitiveRow {
+    long getId();
+  }
+
+  private static class CountingAdapter implements IndexedTypeAdapter<Tag> {
+    int decoded;
+
+    @Override
+    public Tag fromCursor(Cursor c, String columnName) {
+      return fromCursor(c, c.getColumnIndexOrThrow(columnName));
+    }
+
+    @Override
+    public Tag fromCursor(Cursor c, int columnIndex) {
+      decoded++;
+      return new Tag(c.getString(columnIndex));
+    }
+
+    @Override
+    public void toContentValues(ContentValues values, String columnName, Tag object) {
+      values.put(columnName, object.name);
+    }
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    countingAdapter = new CountingAdapter();
+    testSubject = new MicroOrm.Builder()
+        .registerTypeAdapter(Tag.class, countingAdapter)
+        .build();
+  }
+
+  private static MatrixCursor messagesCursor() {
+    MatrixCursor cursor = new MatrixCursor(new String[] { "ID", "SUBJECT", "UNREAD", "TAG" });
+    cursor.addRow(new Object[] { 1, "hello", 1, "inbox" });
+    cursor.addRow(new Object[] { 2, null, 0, "spam" });
+    return cursor;
+  }
+
+  @Test
+  public void shouldBuildProjectionFromGetters() throws Exception {
+    RowViewMapping<MessageRow> mapping = testSubject.getRowViewMapping(MessageRow.class);
+
+    assertThat(Arrays.asList(mapping.getProjection())).containsExactly("ID", "SUBJECT", "UNREAD", "TAG");
+  }
+
+  @Test
+  public void shouldReadColumnsThroughGetters() throws Exception {
+    List<MessageRow> rows = testSubject.getRowViewMapping(MessageRow.class).listFromCursor(messagesCursor());
+
+    assertThat(rows).hasSize(2);
+    assertThat(rows.get(0).getId()).isEqualTo(1L);
+    assertThat(rows.get(0).getSubject()).isEqualTo("hello");
+    assertThat(rows.get(0).isUnread()).isTrue();
+    assertThat(rows.get(0).tag().name).isEqualTo("inbox");
+    assertThat(rows.get(1).getId()).isEqualTo(2L);
+    assertThat(rows.get(1).getSubject()).isNull();
+    assertThat(rows.get(1).isUnread()).isFalse();
+  }
+
+  @Test
+  public void shouldReturnNullForNullColumn() throws Exception {
+    MatrixCursor cursor = new MatrixCursor(new String[] { "ID", "SUBJECT", "UNREAD", "TAG" });
+    cursor.addRow(new Object[] { null, null, null, null });
+
+    List<MessageRow> rows = testSubject.getRowViewMapping(MessageRow.class).listFromCursor(cursor);
+
+    assertThat(rows.get(0).getId()).isNull();
+    assertThat(rows.get(0).isUnread()).isNull();
+  }
+
+  @Test
+  public void shouldDecodeColumnOnlyOnFirstAccess() throws Exception {
+    List<MessageRow> rows = testSubject.getRowViewMapping(MessageRow.class).listFromCursor(messagesCursor());
+    assertThat(countingAdapter.decoded).isEqualTo(0);
+
+    Tag tag = rows.get(1).tag();
+    assertThat(tag.name).isEqualTo("spam");
+    assertThat(rows.get(1).tag()).isSameAs(tag);
+    assertThat(countingAdapter.decoded).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldKeepSnapshotAfterCursorIsClosed() throws Exception {
+    MatrixCursor cursor = messagesCursor();
+    cursor.moveToFirst();
+
+    MessageRow row = testSubject.getRowViewMapping(MessageRow.class).fromCursor(cursor);
+    cursor.close();
+
+    assertThat(row.getSubject()).isEqualTo("hello");
+  }
+
+  @Test
+  public void shouldImplementObjectMethods() throws Exception {
+    MatrixCursor cursor = messagesCursor();
+    cursor.moveToFirst();
+
+    MessageRow row = testSubject.getRowViewMapping(MessageRow.class).fromCursor(cursor);
+
+    assertThat(row.equals(row)).isTrue();
+    assertThat(row.hashCode()).isEqualTo(System.identityHashCode(row));
+    assertThat(row.toString()).startsWith("MessageRow@");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectMethodsWithParameters() throws Exception {
+    testSubject.getRowViewMapping(InvalidRow.class);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectPrimitiveReturnTypes() throws Exception {
+    testSubject.getRowViewMapping(PrimitiveRow.class);
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm.tests;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.*;
+
+import org.chalup.microorm.MicroOrm;
+import org.chalup.microorm.annotations.Embedded;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.database.MatrixCursor;
+
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class SparseMappingTest {
+
+  private MicroOrm testSubject;
+
+  public static class Thumbnail {
+    byte[] data;
+    int width;
+  }
+
+  public static class Photo {
+    long id;
+    String title = "untitled";
+
+    @Embedded
+    Thumbnail thumbnail;
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    testSubject = new MicroOrm();
+  }
+
+  @Test
+  public void shouldMapOnlyPresentColumns() throws Exception {
+    MatrixCursor cursor = new MatrixCursor(new String[] { "ID", "WIDTH" });
+    cursor.addRow(new Object[] { 1, 64 });
+    cursor.moveToFirst();
+
+    Photo photo = testSubject.fromCursorSparse(cursor, Photo.class);
+
+    assertThat(photo.id).isEqualTo(1L);
+    assertThat(photo.title).isEqualTo("untitled");
+    assertThat(photo.thumbnail.width).isEqualTo(64);
+    assertThat(photo.thumbnail.data).isNull();
+  }
+
+  @Test
+  public void shouldNotModifyFieldsOfMissingColumns() throws Exception {
+    Photo photo = new Photo();
+    photo.id = 5;
+    photo.title = "sunset";
+
+    MatrixCursor cursor = new MatrixCursor(new String[] { "TITLE" });
+    cursor.addRow(new Object[] { "sunrise" });
+    cursor.moveToFirst();
+
+    testSubject.fromCursorSparse(cursor, photo);
+
+    assertThat(photo.id).isEqualTo(5L);
+    assertThat(photo.title).isEqualTo("sunrise");
+  }
+
+  @Test
+  public void shouldResolveColumnsOncePerCursorLayout() throws Exception {
+    MatrixCursor cursor = spy(new MatrixCursor(new String[] { "TITLE", "ID" }));
+    cursor.addRow(new Object[] { "first", 1 });
+    cursor.addRow(new Object[] { "second", 2 });
+
+    List<Photo> photos = testSubject.listFromCursorSparse(cursor, Photo.class);
+
+    assertThat(photos).hasSize(2);
+    assertThat(photos.get(1).id).isEqualTo(2L);
+    assertThat(photos.get(1).title).isEqualTo("second");
+    verify(cursor, times(1)).getColumnIndex("DATA");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void regularMappingShouldStillFailForMissingColumns() throws Exception {
+    MatrixCursor cursor = new MatrixCursor(new String[] { "ID" });
+    cursor.addRow(new Object[] { 1 });
+
+    testSubject.listFromCursor(cursor, Photo.class);
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2013 Jerzy Chalupski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.chalup.microorm.tests;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.*;
+
+import org.chalup.microorm.MicroOrm;
+import org.chalup.microorm.TailMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class TailMapperTest {
+
+  private static final String TABLE = "events";
+
+  private TailMapper<Event> testSubject;
+  private SQLiteDatabase databaseMock;
+  private List<String> tableRows;
+
+  public static class Event {
+    String message;
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    testSubject = new MicroOrm().getTailMapper(Event.class, TABLE);
+    tableRows = new ArrayList<>();
+
+    databaseMock = mock(SQLiteDatabase.class);
+    when(databaseMock.query(eq(TABLE), any(String[].class), anyString(), any(String[].class), anyString(), anyString(), anyString()))
+        .thenAnswer(new Answer<Cursor>() {
+          @Override
+          public Cursor answer(InvocationOnMock invocation) throws Throwable {
+            String[] projection = (String[]) invocation.getArguments()[1];
+            String[] selectionArgs = (String[]) invocation.getArguments()[3];
+
+            assertThat(projection).asList().containsExactly("MESSAGE", "rowid").inOrder();
+
+            long lastRowId = selectionArgs != null ? Long.parseLong(selectionArgs[0]) : 0;
+            MatrixCursor cursor = new MatrixCursor(projection);
+            for (int i = (int) lastRowId; i < tableRows.size(); i++) {
+              cursor.addRow(new Object[] { tableRows.get(i), i + 1 });
+            }
+            return cursor;
+          }
+        });
+  }
+
+  @Test
+  public void shouldMapWholeTableOnFirstPoll() throws Exception {
+    tableRows.add("first");
+    tableRows.add("second");
+
+    List<Event> events = testSubject.poll(databaseMock);
+
+    assertThat(events).hasSize(2);
+    assertThat(testSubject.getList()).hasSize(2);
+    assertThat(testSubject.getLastKey()).isEqualTo(2L);
+    verify(databaseMock).query(eq(TABLE), any(String[].class), isNull(String.class), isNull(String[].class), anyString(), anyString(), eq("rowid ASC"));
+  }
+
+  @Test
+  public void shouldMapOnlyNewRows() throws Exception {
+    tableRows.add("first");
+    testSubject.poll(databaseMock);
+    Event first = testSubject.getList().get(0);
+
+    tableRows.add("second");
+    tableRows.add("third");
+    List<Event> events = testSubject.poll(databaseMock);
+
+    assertThat(events).hasSize(2);
+    assertThat(events.get(0).message).isEqualTo("second");
+    assertThat(testSubject.getList()).hasSize(3);
+    assertThat(testSubject.getList().get(0)).isSameAs(first);
+    assertThat(testSubject.getList().get(2).message).isEqualTo("third");
+    verify(databaseMock).query(eq(TABLE), any(String[].class), eq("rowid > ?"), eq(new String[] { "1" }), anyString(), anyString(), eq("rowid ASC"));
+  }
+
+  @Test
+  public void shouldReturnEmptyListWhenThereAreNoNewRows() throws Exception {
+    tableRows.add("first");
+    testSubject.poll(databaseMock);
+
+    assertThat(testSubject.poll(databaseMock)).isEmpty();
+    assertThat(testSubject.getList()).hasSize(1);
+  }
+
+  @Test
+  public void shouldMapWholeTableAfterReset() throws Exception {
+    tableRows.add("first");
+    testSubject.poll(databaseMock);
+
+    testSubject.reset();
+
+    assertThat(testSubject.poll(databaseMock)).hasSize(1);
+    assertThat(testSubject.getList()).hasSize(1);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void shouldFailToGetLastKeyBeforeFirstRowIsMapped() throws Exception {
+    testSubject.getLastKey();
+  }
+}